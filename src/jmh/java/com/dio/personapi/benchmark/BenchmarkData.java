@@ -0,0 +1,43 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PhoneDTO;
+import com.dio.personapi.enums.PhoneType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Valid payloads shaped like the ones the API receives, with distinct values per person.
+ */
+final class BenchmarkData {
+
+    private static final String[] CPFS = {"369.333.878-79", "123.456.789-09", "987.654.321-00", "529.982.247-25"};
+
+    private BenchmarkData() {
+    }
+
+    static PersonDTO personDTO(int index, int phones) {
+        return PersonDTO.builder()
+                .id((long) index + 1)
+                .firstName("Michele " + index)
+                .lastName("Fidelis")
+                .cpf(CPFS[index % CPFS.length])
+                .birthDate("04-04-2010")
+                .phones(IntStream.range(0, phones)
+                        .mapToObj(phone -> PhoneDTO.builder()
+                                .id((long) index * 100 + phone)
+                                .type(PhoneType.MOBILE)
+                                .number(String.format("(11)9%04d-%04d", index % 10_000, phone))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    static List<PersonDTO> personDTOs(int count, int phones) {
+        return IntStream.range(0, count)
+                .mapToObj(index -> personDTO(index, phones))
+                .collect(Collectors.toList());
+    }
+}
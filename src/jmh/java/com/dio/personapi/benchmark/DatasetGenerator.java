@@ -0,0 +1,51 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.utils.PersonDataset;
+import com.dio.personapi.utils.PersonGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resets a benchmark database, or writes an import file, with the first people of a {@link PersonGenerator}.
+ * <p>
+ * Options are {@code key=value} arguments: {@code people} (1000000), {@code seed} (1), {@code threads} (the
+ * number of processors) and either {@code url}, {@code username} and {@code password} of the database, whose
+ * people and phones are replaced, or {@code ndjson}, the path of the file to write. Run it with
+ * {@code mvn -P benchmarks test-compile exec:exec@generate -Dgenerate.args="people=5000000 ndjson=target/people.ndjson"}.
+ */
+public class DatasetGenerator {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Options are key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        long people = Long.parseLong(options.getOrDefault("people", "1000000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        PersonDataset dataset = new PersonDataset(new PersonGenerator(Long.parseLong(options.getOrDefault("seed", "1"))), threads);
+
+        long start = System.nanoTime();
+        if (options.containsKey("ndjson")) {
+            dataset.writeNdjson(Path.of(options.get("ndjson")), people);
+        } else if (options.containsKey("url")) {
+            try (HikariDataSource dataSource = new HikariDataSource()) {
+                dataSource.setJdbcUrl(options.get("url"));
+                dataSource.setUsername(options.get("username"));
+                dataSource.setPassword(options.get("password"));
+                dataSource.setMaximumPoolSize(threads);
+                dataset.insert(dataSource, people);
+            }
+        } else {
+            throw new IllegalArgumentException("Either the url of a database or an ndjson file is required");
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("Generated %d people in %d ms, %d per minute%n", people, millis, people * 60_000 / millis);
+    }
+}
@@ -0,0 +1,88 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.dto.TokenRequestDTO;
+import com.dio.personapi.dto.TokenResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * HTTP/1.1 client of the API under test, authenticated with a bearer token of an administrator.
+ */
+final class LoadClient {
+
+    static final String JSON = "application/json";
+    static final String NDJSON = "application/x-ndjson";
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(TIMEOUT)
+            .build();
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private String authorization;
+
+    LoadClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    void login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/api/v1/auth/token", JSON,
+                json(TokenRequestDTO.builder().username(username).password(password).build())));
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login of " + username + " failed with status " + response.statusCode());
+        }
+        TokenResponseDTO token = read(response.body(), TokenResponseDTO.class);
+        authorization = token.getTokenType() + " " + token.getAccessToken();
+    }
+
+    HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    HttpRequest post(String path, String contentType, String body) {
+        return request(path).header("Content-Type", contentType).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    HttpRequest put(String path, String body) {
+        return request(path).header("Content-Type", JSON).PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+        return authorization == null ? builder : builder.header("Authorization", authorization);
+    }
+}
@@ -0,0 +1,231 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.PersonapiApplication;
+import com.dio.personapi.duplicate.DuplicateGuard;
+import com.dio.personapi.service.PersonSearchService;
+import com.dio.personapi.utils.PersonDataset;
+import com.dio.personapi.utils.PersonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load test of the API. Boots {@link PersonapiApplication} on an in-memory H2 database, seeds
+ * it, then drives every {@code PersonController} endpoint from concurrent clients with a weighted request
+ * mix, and reports the throughput and latency percentiles of each endpoint on the console and as JSON.
+ * <p>
+ * Options are {@code key=value} arguments: {@code people} (10000), {@code seed} (1) of the {@link PersonGenerator},
+ * {@code threads} (16), {@code warmup} (10s), {@code duration} (30s), {@code output} (target/load-result.json)
+ * and {@code mix}, a comma separated list of {@code endpoint=weight} that replaces the default mix of {@link LoadScenarios}. Run it with
+ * {@code mvn -P benchmarks test-compile exec:exec@load -Dload.args="threads=32 mix=findById=9,create=1"}.
+ * <p>
+ * Clients are closed loop: each one sends its next request when the previous one is answered. Latencies
+ * under saturation are therefore those of the requests actually sent, without coordinated omission correction.
+ */
+public class LoadHarness {
+
+    private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // the in-memory administrator of SecurityConfig
+    private static final String USERNAME = "Michele2";
+    private static final String PASSWORD = "projectSpringBoot";
+
+    private final Map<String, String> options;
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+
+    LoadHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Options are key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new LoadHarness(options).run();
+    }
+
+    void run() throws Exception {
+        int people = Integer.parseInt(option("people", "10000"));
+        int threads = Integer.parseInt(option("threads", "16"));
+        Duration warmup = DurationStyle.detectAndParse(option("warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(option("duration", "30s"));
+
+        try (ConfigurableApplicationContext context = start()) {
+            PersonGenerator generator = new PersonGenerator(Long.parseLong(option("seed", "1")));
+            long start = System.nanoTime();
+            seed(context, generator, people);
+            System.out.printf("Seeded %d people in %d ms%n", people, (System.nanoTime() - start) / 1_000_000);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadClient client = new LoadClient("http://localhost:" + port, context.getBean(ObjectMapper.class));
+            client.login(USERNAME, PASSWORD);
+            LoadScenarios scenarios = new LoadScenarios(client, generator, people);
+            Map<String, Integer> mix = scenarios.weights(option("mix", ""));
+            mix.keySet().forEach(name -> {
+                recorders.put(name, new Recorder(HIGHEST_LATENCY_NANOS, 3));
+                errors.put(name, new LongAdder());
+            });
+
+            System.out.printf("Running %s with %d clients after a %s warmup%n", duration, threads, warmup);
+            drive(scenarios, mix, threads, warmup);
+            recorders.values().forEach(Recorder::getIntervalHistogram);
+            errors.values().forEach(LongAdder::reset);
+            drive(scenarios, mix, threads, duration);
+            report(duration);
+        }
+    }
+
+    /**
+     * Command line arguments, since they take precedence over application.yml. Devtools restarts are
+     * disabled so that the context stays in this thread.
+     */
+    private ConfigurableApplicationContext start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(PersonapiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.autoconfigure.exclude=org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--personapi.security.token.time-to-live=1d",
+                        "--logging.level.root=WARN",
+                        "--logging.level.web=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.springframework.web=WARN");
+    }
+
+    /**
+     * Inserts the generated people and rebuilds the in-memory structures that are normally filled when the
+     * application is ready.
+     */
+    private void seed(ConfigurableApplicationContext context, PersonGenerator generator, int people) throws SQLException {
+        new PersonDataset(generator, Runtime.getRuntime().availableProcessors()).insert(context.getBean(DataSource.class), people);
+        context.getBean(PersonSearchService.class).rebuildIndex();
+        context.getBean(DuplicateGuard.class).load();
+    }
+
+    private void drive(LoadScenarios scenarios, Map<String, Integer> mix, int threads, Duration duration) throws InterruptedException {
+        List<String> names = new ArrayList<>(mix.keySet());
+        int[] cumulativeWeights = new int[names.size()];
+        int total = 0;
+        for (int i = 0; i < names.size(); i++) {
+            total += mix.get(names.get(i));
+            cumulativeWeights[i] = total;
+        }
+        int totalWeight = total;
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+                    int scenario = 0;
+                    while (cumulativeWeights[scenario] <= pick) {
+                        scenario++;
+                    }
+                    call(scenarios, names.get(scenario));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration.toMillis() + HIGHEST_LATENCY_NANOS / 1_000_000, TimeUnit.MILLISECONDS);
+    }
+
+    private void call(LoadScenarios scenarios, String name) {
+        LoadScenarios.Scenario scenario = scenarios.scenario(name);
+        boolean succeeded;
+        try {
+            HttpRequest request = scenario.request();
+            long start = System.nanoTime();
+            HttpResponse<String> response = scenarios.send(request);
+            recorders.get(name).recordValue(Math.min(System.nanoTime() - start, HIGHEST_LATENCY_NANOS));
+            scenario.completed(response);
+            succeeded = response.statusCode() < 400;
+        } catch (IOException | RuntimeException e) {
+            succeeded = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!succeeded) {
+            errors.get(name).increment();
+        }
+    }
+
+    private void report(Duration duration) throws IOException {
+        double seconds = duration.toNanos() / 1e9;
+        Histogram all = new Histogram(HIGHEST_LATENCY_NANOS, 3);
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+
+        System.out.printf("%n%-22s %10s %8s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            all.add(histogram);
+            results.put(entry.getKey(), result(histogram, errors.get(entry.getKey()).sum(), seconds));
+        }
+        results.put("all", result(all, errors.values().stream().mapToLong(LongAdder::sum).sum(), seconds));
+        results.forEach((name, result) -> System.out.printf("%-22s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name,
+                result.get("requests"), result.get("errors"), result.get("throughput"),
+                result.get("p50"), result.get("p99"), result.get("p999"), result.get("max")));
+
+        File output = new File(option("output", "target/load-result.json"));
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("durationSeconds", seconds);
+        report.put("latencyUnit", "ms");
+        report.put("endpoints", results);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+        System.out.println("\nResults written to " + output.getAbsolutePath());
+    }
+
+    private static Map<String, Object> result(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", histogram.getTotalCount());
+        result.put("errors", errors);
+        result.put("throughput", histogram.getTotalCount() / seconds);
+        result.put("p50", millis(histogram.getValueAtPercentile(50)));
+        result.put("p99", millis(histogram.getValueAtPercentile(99)));
+        result.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        result.put("max", millis(histogram.getMaxValue()));
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+}
@@ -0,0 +1,228 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.dto.BulkOperationDTO;
+import com.dio.personapi.wrapper.CursorPage;
+import com.dio.personapi.enums.BulkOperationType;
+import com.dio.personapi.utils.PersonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * One scenario per {@code PersonController} endpoint, with their default weights in the request mix.
+ * <p>
+ * Reads pick a random seeded person, person {@code index} of the generator with the id {@code index + 1}.
+ * Writes create people the generator has not given yet, and only replace or delete people created
+ * during the run, so every read keeps finding its person. Any extra request a scenario needs, such as creating
+ * the person it then deletes, is sent while building its request and is not measured.
+ */
+final class LoadScenarios {
+
+    private static final String PEOPLE = "/api/v1/people";
+    private static final String ADMIN = PEOPLE + "/admin";
+    private static final int PAGE_SIZE = 20;
+    private static final int BATCH_SIZE = 10;
+
+    interface Scenario {
+
+        HttpRequest request() throws IOException, InterruptedException;
+
+        default void completed(HttpResponse<String> response) {
+        }
+    }
+
+    private final LoadClient client;
+    private final PersonGenerator generator;
+    private final int seededPeople;
+    private final AtomicLong nextIndex;
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private final Queue<String> importIds = new ConcurrentLinkedQueue<>();
+    private final Map<String, Integer> defaultWeights = new LinkedHashMap<>();
+    private final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+
+    LoadScenarios(LoadClient client, PersonGenerator generator, int seededPeople) {
+        this.client = client;
+        this.generator = generator;
+        this.seededPeople = seededPeople;
+        this.nextIndex = new AtomicLong(seededPeople);
+
+        add("findById", 20, () -> client.get(PEOPLE + "/" + randomSeededId()));
+        add("findByIdAuthenticated", 5, () -> client.get(PEOPLE + "/by-id/" + randomSeededId()));
+        add("findByCpf", 10, () -> client.get(PEOPLE + "/by-cpf/" + generator.cpf(randomSeededIndex())));
+        add("findByPhone", 10, () -> client.get(PEOPLE + "/by-phone/"
+                + generator.mobileNumber(randomSeededIndex()).replaceAll("\\D", "")));
+        add("listAll", 10, () -> client.get(PEOPLE + "?size=" + PAGE_SIZE + "&page="
+                + ThreadLocalRandom.current().nextInt(Math.max(1, seededPeople / PAGE_SIZE))));
+        add("listAfter", 10, () -> client.get(PEOPLE + "?size=" + PAGE_SIZE + "&after="
+                + CursorPage.encodeCursor(randomSeededId())));
+        add("find", 10, () -> client.get(PEOPLE + "/find?size=" + PAGE_SIZE + "&name="
+                + encode(randomSeededLastName().substring(0, 3))));
+        add("search", 10, () -> client.get(PEOPLE + "/search?q="
+                + encode(randomSeededLastName().substring(1, 4))));
+        add("export", 1, () -> client.get(PEOPLE + "/export"));
+        add("create", 5, new Scenario() {
+            @Override
+            public HttpRequest request() {
+                return createRequest();
+            }
+
+            @Override
+            public void completed(HttpResponse<String> response) {
+                if (response.statusCode() == 201) {
+                    createdIds.add(createdId(response));
+                }
+            }
+        });
+        add("replace", 3, new Scenario() {
+            private final ThreadLocal<Long> id = new ThreadLocal<>();
+
+            @Override
+            public HttpRequest request() throws IOException, InterruptedException {
+                id.set(takeCreatedId());
+                return client.put(ADMIN + "/" + id.get(), client.json(generator.personDTO(nextIndex.getAndIncrement())));
+            }
+
+            @Override
+            public void completed(HttpResponse<String> response) {
+                createdIds.add(id.get());
+            }
+        });
+        add("delete", 3, () -> client.delete(ADMIN + "/" + takeCreatedId()));
+        add("bulk", 1, () -> client.post(ADMIN + "/bulk", LoadClient.JSON, client.json(freshIndexes(BATCH_SIZE)
+                .mapToObj(index -> BulkOperationDTO.builder()
+                        .operation(BulkOperationType.CREATE)
+                        .person(generator.personDTO(index))
+                        .build())
+                .collect(Collectors.toList()))));
+        add("import", 1, new Scenario() {
+            private final ThreadLocal<String> importId = new ThreadLocal<>();
+
+            @Override
+            public HttpRequest request() {
+                importId.set(UUID.randomUUID().toString());
+                return importRequest(importId.get());
+            }
+
+            @Override
+            public void completed(HttpResponse<String> response) {
+                importIds.add(importId.get());
+            }
+        });
+        add("findImport", 1, () -> {
+            String importId = importIds.peek();
+            if (importId == null) {
+                importId = UUID.randomUUID().toString();
+                client.send(importRequest(importId));
+                importIds.add(importId);
+            }
+            return client.get(ADMIN + "/import/" + importId);
+        });
+    }
+
+    Scenario scenario(String name) {
+        return scenarios.get(name);
+    }
+
+    HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request);
+    }
+
+    /**
+     * Weights of the scenarios to run: the default ones, or those of {@code mix}, a comma separated list of
+     * {@code name=weight}.
+     */
+    Map<String, Integer> weights(String mix) {
+        if (mix.isBlank()) {
+            return defaultWeights;
+        }
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split("=");
+            if (nameAndWeight.length != 2 || !scenarios.containsKey(nameAndWeight[0])) {
+                throw new IllegalArgumentException("Unknown mix entry " + entry + ", scenarios are " + scenarios.keySet());
+            }
+            int weight = Integer.parseInt(nameAndWeight[1]);
+            if (weight > 0) {
+                weights.put(nameAndWeight[0], weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no scenario with a positive weight");
+        }
+        return weights;
+    }
+
+    private void add(String name, int weight, Scenario scenario) {
+        defaultWeights.put(name, weight);
+        scenarios.put(name, scenario);
+    }
+
+    private HttpRequest createRequest() {
+        return client.post(PEOPLE, LoadClient.JSON, client.json(generator.personDTO(nextIndex.getAndIncrement())));
+    }
+
+    private HttpRequest importRequest(String importId) {
+        String body = freshIndexes(BATCH_SIZE)
+                .mapToObj(index -> client.json(generator.personDTO(index)))
+                .collect(Collectors.joining("\n", "", "\n"));
+        return client.post(ADMIN + "/import?format=ndjson&importId=" + importId, LoadClient.NDJSON, body);
+    }
+
+    /**
+     * A person created during the run, created now if there is none left. The caller owns it until it puts
+     * it back in {@link #createdIds}.
+     */
+    private long takeCreatedId() throws IOException, InterruptedException {
+        Long id = createdIds.poll();
+        if (id != null) {
+            return id;
+        }
+        HttpResponse<String> response = client.send(createRequest());
+        if (response.statusCode() != 201) {
+            throw new IOException("Unable to create a person, status " + response.statusCode() + ": " + response.body());
+        }
+        return createdId(response);
+    }
+
+    private long createdId(HttpResponse<String> response) {
+        String message = client.read(response.body(), JsonNode.class).get("message").asText();
+        return Long.parseLong(message.substring(message.lastIndexOf(' ') + 1));
+    }
+
+    private LongStream freshIndexes(int count) {
+        long first = nextIndex.getAndAdd(count);
+        return LongStream.range(first, first + count);
+    }
+
+    private int randomSeededIndex() {
+        return ThreadLocalRandom.current().nextInt(seededPeople);
+    }
+
+    private long randomSeededId() {
+        return randomSeededIndex() + 1;
+    }
+
+    /**
+     * Surnames have at least four letters.
+     */
+    private String randomSeededLastName() {
+        return generator.person(randomSeededIndex()).getLastName();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
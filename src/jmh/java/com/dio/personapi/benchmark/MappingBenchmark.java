@@ -0,0 +1,58 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.mapper.PersonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct conversions done on every create, replace and read, including the dd-MM-yyyy birth date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1", "5", "20"})
+    private int phones;
+
+    private final PersonMapper personMapper = PersonMapper.INSTANCE;
+    private PersonDTO personDTO;
+    private Person person;
+
+    @Setup
+    public void setup() {
+        personDTO = BenchmarkData.personDTO(1, phones);
+        person = personMapper.toModel(personDTO);
+    }
+
+    @Benchmark
+    public Person toModel() {
+        return personMapper.toModel(personDTO);
+    }
+
+    @Benchmark
+    public PersonDTO toDTO() {
+        return personMapper.toDTO(person);
+    }
+
+    @Benchmark
+    public PersonDTO toExportDTO() {
+        return personMapper.toExportDTO(person);
+    }
+}
@@ -0,0 +1,64 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.wrapper.PageableResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson writing of the list endpoint's page of people, and reading it back into the
+ * {@link PageableResponse} clients use. The mapper is built with Spring's defaults, as the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int PHONES = 2;
+    private static final TypeReference<PageableResponse<PersonDTO>> PAGE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"1", "20", "100", "1000"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private Page<PersonDTO> page;
+    private byte[] pageJson;
+
+    @Setup
+    public void setup() throws IOException {
+        page = new PageImpl<>(BenchmarkData.personDTOs(pageSize, PHONES), PageRequest.of(0, pageSize), pageSize * 10L);
+        pageJson = objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writePage() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PageableResponse<PersonDTO> readPageableResponse() throws IOException {
+        return objectMapper.readValue(pageJson, PAGE_TYPE);
+    }
+}
@@ -0,0 +1,68 @@
+package com.dio.personapi.benchmark;
+
+import com.dio.personapi.dto.PersonDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of a request body: CPF, name sizes and the nested phones. The invalid payload fails
+ * the CPF and every phone, which also measures building the violation messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"1", "5", "20"})
+    private int phones;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private PersonDTO validPerson;
+    private PersonDTO invalidPerson;
+
+    @Setup
+    public void setup() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validPerson = BenchmarkData.personDTO(1, phones);
+        invalidPerson = BenchmarkData.personDTO(1, phones);
+        invalidPerson.setCpf("123.456.789-00");
+        invalidPerson.getPhones().forEach(phone -> phone.setNumber("123"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PersonDTO>> validateValid() {
+        return validator.validate(validPerson);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PersonDTO>> validateInvalid() {
+        return validator.validate(invalidPerson);
+    }
+}
@@ -5,9 +5,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 
-@SpringBootApplication
+/**
+ * R2DBC is only used by the optional reactive reads, which configure it in {@code ReactiveConfig}.
+ */
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class PersonapiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,57 @@
+package com.dio.personapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-process caches, bounded by size and time to live. They record statistics, which Spring Boot
+ * publishes as {@code cache.gets}, {@code cache.evictions} and {@code cache.size} meters.
+ * <p>
+ * The people cache is transaction aware: evictions done inside a transaction wait for it to commit, so
+ * a read between the write and the commit cannot cache the person as it was before.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PEOPLE_CACHE = "people";
+    public static final String USERS_CACHE = "users";
+    public static final String CREDENTIALS_CACHE = "credentials";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${personapi.cache.people.maximum-size:10000}") long peopleMaximumSize,
+                                     @Value("${personapi.cache.people.time-to-live:10m}") Duration peopleTimeToLive,
+                                     @Value("${personapi.cache.users.maximum-size:1000}") long usersMaximumSize,
+                                     @Value("${personapi.cache.users.time-to-live:5m}") Duration usersTimeToLive,
+                                     @Value("${personapi.cache.credentials.maximum-size:1000}") long credentialsMaximumSize,
+                                     @Value("${personapi.cache.credentials.time-to-live:5m}") Duration credentialsTimeToLive) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                Cache adapted = super.adaptCaffeineCache(name, cache);
+                return PEOPLE_CACHE.equals(name) ? new TransactionAwareCacheDecorator(adapted) : adapted;
+            }
+        };
+        cacheManager.registerCustomCache(PEOPLE_CACHE, cache(peopleMaximumSize, peopleTimeToLive));
+        cacheManager.registerCustomCache(USERS_CACHE, cache(usersMaximumSize, usersTimeToLive));
+        cacheManager.registerCustomCache(CREDENTIALS_CACHE, cache(credentialsMaximumSize, credentialsTimeToLive));
+        return cacheManager;
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> cache(long maximumSize, Duration timeToLive) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+}
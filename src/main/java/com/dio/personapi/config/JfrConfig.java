@@ -0,0 +1,36 @@
+package com.dio.personapi.config;
+
+import com.dio.personapi.jfr.FlightRecorderEndpoint;
+import com.dio.personapi.jfr.MappingEventInterceptor;
+import com.dio.personapi.mapper.PersonCsvMapper;
+import com.dio.personapi.mapper.PersonMapper;
+import com.dio.personapi.metrics.TypeAdvisingPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * On demand Java Flight Recorder recordings through {@code /actuator/jfr}, with events of the service,
+ * repository and mapping layers. The service events come from the service timers and the query events from
+ * the statement counting data source of {@link MetricsConfig}.
+ */
+@Configuration
+public class JfrConfig {
+
+    @Bean
+    public FlightRecorderEndpoint flightRecorderEndpoint(@Value("${personapi.jfr.max-age:1h}") Duration maxAge,
+                                                         @Value("${personapi.jfr.max-size:256MB}") DataSize maxSize) {
+        return new FlightRecorderEndpoint(maxAge, maxSize);
+    }
+
+    /**
+     * Static, as bean post processors are created before the other beans.
+     */
+    @Bean
+    public static TypeAdvisingPostProcessor mappingEventPostProcessor() {
+        return new TypeAdvisingPostProcessor(new MappingEventInterceptor(), PersonMapper.class, PersonCsvMapper.class);
+    }
+}
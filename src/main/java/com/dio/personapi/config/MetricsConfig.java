@@ -0,0 +1,90 @@
+package com.dio.personapi.config;
+
+import com.dio.personapi.metrics.HibernateSessionMetrics;
+import com.dio.personapi.metrics.MetricsTags;
+import com.dio.personapi.metrics.RequestStatementsFilter;
+import com.dio.personapi.metrics.SlowQueryLog;
+import com.dio.personapi.metrics.StatementCountingDataSource;
+import com.dio.personapi.metrics.TimedServicePostProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+/**
+ * Timers of the service and repository layers and per session Hibernate metrics, all tagged with the
+ * endpoint and outcome of the request, next to the {@code http.server.requests} timers of Spring Boot.
+ * Percentile histograms and SLO buckets are set per meter name in application.yml.
+ * <p>
+ * The JDBC statements of each request are counted on the connections Hibernate gets, from the filter on,
+ * so that they include the user lookups of the security filters.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "personapi.service";
+
+    /**
+     * Static, as bean post processors are created before the other beans.
+     */
+    @Bean
+    public static TimedServicePostProcessor timedServicePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new TimedServicePostProcessor(meterRegistry);
+    }
+
+    /**
+     * Adds the endpoint and outcome to the tags of Spring Boot's {@code spring.data.repository.invocations}.
+     */
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaultTags = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaultTags.repositoryTags(invocation))
+                .and(MetricsTags.endpoint(), MetricsTags.outcome(invocation.getResult() == null ? null : invocation.getResult().getError()));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSessionMetrics() {
+        return properties -> properties.put("hibernate.session.events.auto", HibernateSessionMetrics.class.getName());
+    }
+
+    /**
+     * Hands Hibernate a {@link StatementCountingDataSource} around the pooled data source, before the entity
+     * manager factory is built, along with the {@link SlowQueryLog} when there is one. Static, as bean post
+     * processors are created before the other beans.
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingPostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean) {
+                    LocalContainerEntityManagerFactoryBean factory = (LocalContainerEntityManagerFactoryBean) bean;
+                    if (factory.getDataSource() != null && !(factory.getDataSource() instanceof StatementCountingDataSource)) {
+                        factory.setDataSource(new StatementCountingDataSource(factory.getDataSource(), slowQueryLog.getIfAvailable()));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestStatementsFilter> requestStatementsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${personapi.statements.response-headers:false}") boolean responseHeaders,
+            @Value("${personapi.statements.repeated-query-threshold:5}") int repeatedQueryThreshold) {
+        FilterRegistrationBean<RequestStatementsFilter> registration =
+                new FilterRegistrationBean<>(new RequestStatementsFilter(meterRegistry, responseHeaders, repeatedQueryThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
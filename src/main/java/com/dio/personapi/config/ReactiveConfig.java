@@ -0,0 +1,55 @@
+package com.dio.personapi.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Non-blocking R2DBC connections for the reactive read endpoints, next to the JDBC pool that JPA and
+ * every write keep using. Only created when {@code personapi.reactive.enabled} is true.
+ * <p>
+ * The connection pool is deliberately not a bean: Spring Boot backs its JDBC DataSource off when a
+ * {@link ConnectionFactory} bean exists. For the same reason its R2DBC auto-configuration is excluded.
+ */
+@Configuration
+@ConditionalOnProperty(name = ReactiveConfig.ENABLED_PROPERTY, havingValue = "true")
+public class ReactiveConfig implements DisposableBean {
+
+    public static final String ENABLED_PROPERTY = "personapi.reactive.enabled";
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${personapi.reactive.url}") String url,
+                                                 @Value("${spring.datasource.username}") String username,
+                                                 @Value("${spring.datasource.password}") String password,
+                                                 @Value("${personapi.reactive.max-pool-size:20}") int maxPoolSize) {
+        connectionPool = connectionPool(url, username, password, maxPoolSize);
+        return DatabaseClient.create(connectionPool);
+    }
+
+    public static ConnectionPool connectionPool(String url, String username, String password, int maxPoolSize) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .maxSize(maxPoolSize)
+                .build());
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.dio.personapi.config;
+
+import com.dio.personapi.metrics.RequestLogFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Logs a {@code personapi.request-log.sample-rate} share of the requests, and all server errors, on the
+ * {@code personapi.requests} logger. Only loaded when the rate is above 0, as in the {@code prod} profile.
+ */
+@Configuration
+@ConditionalOnExpression("${personapi.request-log.sample-rate:0} > 0")
+public class RequestLogConfig {
+
+    /**
+     * Runs right within the statement counting filter of {@link MetricsConfig}, to log the statements too.
+     */
+    @Bean
+    public FilterRegistrationBean<RequestLogFilter> requestLogFilter(
+            @Value("${personapi.request-log.sample-rate}") double sampleRate) {
+        FilterRegistrationBean<RequestLogFilter> registration = new FilterRegistrationBean<>(new RequestLogFilter(sampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+}
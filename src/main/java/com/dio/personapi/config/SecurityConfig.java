@@ -1,15 +1,28 @@
 package com.dio.personapi.config;
 
+import com.dio.personapi.security.CachingDaoAuthenticationProvider;
+import com.dio.personapi.security.CredentialCache;
+import com.dio.personapi.security.TokenAuthenticationFilter;
+import com.dio.personapi.security.TokenService;
 import com.dio.personapi.service.PersonUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
@@ -18,14 +31,20 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final PersonUserDetailsService personUserDetailsService;
+    private final CredentialCache credentialCache;
+    private final TokenService tokenService;
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.csrf().disable()
 //                csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 .authorizeHttpRequests()
+                .antMatchers("/api/v1/auth/**").permitAll()
                 .antMatchers("/api/v1/people/admin/**").hasRole("ADMIN")
                 .antMatchers("/api/v1/people/**").hasRole("USER")
+                // recordings hold the memory and environment of the process, the slow queries their SQL
+                .antMatchers("/actuator/jfr/**", "/actuator/slowqueries/**").hasRole("ADMIN")
                 .antMatchers("/actuator/**").permitAll()
                 .anyRequest()
                 .authenticated()
@@ -35,22 +54,53 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .httpBasic();
     }
 
+    /**
+     * Exposed for the token endpoint, which checks credentials once and then issues a signed access token.
+     */
+    @Bean
+    @Override
+    public AuthenticationManager authenticationManagerBean() throws Exception {
+        return super.authenticationManagerBean();
+    }
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
 
         PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
         log.info("Password encoded {} ", passwordEncoder.encode("projectSpringBoot"));
 
-        auth.inMemoryAuthentication()
-                .withUser("Michele2")
-                .password(passwordEncoder.encode("projectSpringBoot"))
-                .roles("USER", "ADMIN")
-                .and()
-                .withUser("Visit2")
-                .password(passwordEncoder.encode("projectSpringBoot"))
-                .roles("USER");
+        InMemoryUserDetailsManager inMemoryUsers = new InMemoryUserDetailsManager(
+                User.withUsername("Michele2")
+                        .password(passwordEncoder.encode("projectSpringBoot"))
+                        .roles("USER", "ADMIN")
+                        .build(),
+                User.withUsername("Visit2")
+                        .password(passwordEncoder.encode("projectSpringBoot"))
+                        .roles("USER")
+                        .build());
+
+        // a single provider, so that users of the second store do not pay the timing-attack dummy check of the first
+        CachingDaoAuthenticationProvider provider = new CachingDaoAuthenticationProvider(credentialCache);
+        provider.setUserDetailsService(username -> inMemoryUsers.userExists(username)
+                ? inMemoryUsers.loadUserByUsername(username)
+                : personUserDetailsService.loadUserByUsername(username));
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(userCache());
+        auth.authenticationProvider(provider);
+    }
 
-        auth.userDetailsService(personUserDetailsService)
-                .passwordEncoder(passwordEncoder);
+    /**
+     * Caches loaded users between requests. In-memory users are left out: they are cheap to load and, being
+     * {@link CredentialsContainer}s, would have their cached password erased after authentication.
+     */
+    private UserCache userCache() {
+        return new SpringCacheBasedUserCache(credentialCache.getUsers()) {
+            @Override
+            public void putUserInCache(UserDetails user) {
+                if (!(user instanceof CredentialsContainer)) {
+                    super.putUserInCache(user);
+                }
+            }
+        };
     }
 }
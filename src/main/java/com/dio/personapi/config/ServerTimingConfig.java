@@ -0,0 +1,105 @@
+package com.dio.personapi.config;
+
+import com.dio.personapi.mapper.PersonCsvMapper;
+import com.dio.personapi.mapper.PersonMapper;
+import com.dio.personapi.metrics.PhaseTimingInterceptor;
+import com.dio.personapi.metrics.PhaseTimingJacksonConverter;
+import com.dio.personapi.metrics.PhaseTimingValidator;
+import com.dio.personapi.metrics.RequestPhases;
+import com.dio.personapi.metrics.ServerTimingFilter;
+import com.dio.personapi.metrics.TypeAdvisingPostProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breaks sampled requests down into authentication, validation, repository, mapping and JSON phases, sent in
+ * a {@code Server-Timing} header and recorded as timers. Only loaded when
+ * {@code personapi.server-timing.sample-rate} is above 0, so that requests pay nothing for it otherwise.
+ */
+@Configuration
+@ConditionalOnExpression("${personapi.server-timing.sample-rate:0} > 0")
+public class ServerTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            MeterRegistry meterRegistry,
+            @Value("${personapi.server-timing.sample-rate}") double sampleRate) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(meterRegistry, sampleRate));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> serverTimingAuthenticatedFilter() {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(ServerTimingFilter.authenticated());
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    /**
+     * Replaces the JSON converter of Spring Boot, configured with the same object mapper.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new PhaseTimingJacksonConverter(objectMapper);
+    }
+
+    @Bean
+    public WebMvcConfigurer phaseTimingValidatorConfigurer(SmartValidator defaultValidator) {
+        return new WebMvcConfigurer() {
+            @Override
+            public Validator getValidator() {
+                return new PhaseTimingValidator(defaultValidator);
+            }
+        };
+    }
+
+    /**
+     * Static, as bean post processors are created before the other beans. Nested mapping methods are calls of
+     * a mapper to itself, so they are not counted twice.
+     */
+    @Bean
+    public static TypeAdvisingPostProcessor mapperPhasePostProcessor() {
+        return new TypeAdvisingPostProcessor(new PhaseTimingInterceptor(RequestPhases.Phase.MAPPER),
+                PersonMapper.class, PersonCsvMapper.class);
+    }
+
+    /**
+     * Listens to the repository calls of sampled requests, timed by Spring Data like for the
+     * {@code spring.data.repository.invocations} timers.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryPhasePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addInvocationListener(invocation -> {
+                                RequestPhases phases = RequestPhases.current();
+                                if (phases != null) {
+                                    phases.add(RequestPhases.Phase.REPOSITORY, invocation.getDuration(TimeUnit.NANOSECONDS));
+                                }
+                            }));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.dio.personapi.config;
+
+import com.dio.personapi.metrics.RepositoryCallSite;
+import com.dio.personapi.metrics.SlowQueryEndpoint;
+import com.dio.personapi.metrics.SlowQueryLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Logs the statements slower than {@code personapi.slow-queries.threshold}, optionally with their plan, and
+ * exposes the slowest ones at {@code /actuator/slowqueries}. The statements are handed to the log by the
+ * statement counting data source of {@link MetricsConfig}. Off unless {@code personapi.slow-queries.enabled}, as
+ * it makes that data source time every statement and keep every bind value.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "personapi.slow-queries", name = "enabled")
+public class SlowQueryConfig {
+
+    @Bean
+    public SlowQueryLog slowQueryLog(DataSource dataSource,
+                                     @Value("${personapi.slow-queries.threshold:200ms}") Duration threshold,
+                                     @Value("${personapi.slow-queries.top:20}") int top,
+                                     @Value("${personapi.slow-queries.window:1h}") Duration window,
+                                     @Value("${personapi.slow-queries.explain:false}") boolean explain) {
+        return new SlowQueryLog(threshold, top, window, explain ? dataSource : null);
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+        return new SlowQueryEndpoint(slowQueryLog);
+    }
+
+    /**
+     * Remembers the running repository method as the call site of slow statements. Static, as bean post
+     * processors are created before the other beans.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryCallSitePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(new RepositoryCallSite(repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
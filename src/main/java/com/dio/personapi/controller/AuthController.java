@@ -0,0 +1,38 @@
+package com.dio.personapi.controller;
+
+import com.dio.personapi.dto.TokenRequestDTO;
+import com.dio.personapi.dto.TokenResponseDTO;
+import com.dio.personapi.security.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1/auth")
+@Slf4j
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AuthController {
+
+    private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
+
+    @Operation(summary = "Exchange a username and password for an access token to send as 'Authorization: Bearer <token>'")
+    @PostMapping("token")
+    public ResponseEntity<TokenResponseDTO> token(@RequestBody @Valid TokenRequestDTO tokenRequestDTO) {
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(tokenRequestDTO.getUsername(), tokenRequestDTO.getPassword()));
+        log.info("Issuing access token for '{}'", authentication.getName());
+        return ResponseEntity.ok(tokenService.issue(authentication));
+    }
+}
@@ -1,9 +1,18 @@
 package com.dio.personapi.controller;
 
+import com.dio.personapi.dto.BulkOperationDTO;
+import com.dio.personapi.dto.BulkResultDTO;
+import com.dio.personapi.dto.ImportResultDTO;
 import com.dio.personapi.dto.MessageResponseDTO;
 import com.dio.personapi.dto.PersonDTO;
-import com.dio.personapi.entities.Person;
+import com.dio.personapi.dto.PersonSearchResultDTO;
+import com.dio.personapi.enums.FileFormat;
+import com.dio.personapi.service.PersonBulkService;
+import com.dio.personapi.service.PersonExportService;
+import com.dio.personapi.service.PersonImportService;
+import com.dio.personapi.service.PersonSearchService;
 import com.dio.personapi.service.PersonService;
+import com.dio.personapi.wrapper.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,14 +25,20 @@ import org.springdoc.api.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/people")
@@ -32,6 +47,10 @@ import java.util.List;
 public class PersonController {
 
     private final PersonService personService;
+    private final PersonBulkService personBulkService;
+    private final PersonExportService personExportService;
+    private final PersonImportService personImportService;
+    private final PersonSearchService personSearchService;
 
     @Operation(summary = "Create a new person")
     @PostMapping
@@ -39,41 +58,108 @@ public class PersonController {
         return new ResponseEntity<>(personService.createPerson(personDTO), HttpStatus.CREATED);
     }
 
+    @Operation(summary = "Create, replace and delete people in bulk, returning one result per operation")
+    @PostMapping("admin/bulk")
+    public ResponseEntity<List<BulkResultDTO>> bulk(@RequestBody List<BulkOperationDTO> operations) {
+        return ResponseEntity.ok(personBulkService.execute(operations));
+    }
+
+    @Operation(summary = "Import people from an NDJSON or CSV request body. Send the same file with the same importId to resume a failed import")
+    @PostMapping("admin/import")
+    public ResponseEntity<ImportResultDTO> importPeople(@Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+                                                        @Parameter(description = "id of the import to resume") @RequestParam(required = false) String importId,
+                                                        InputStream inputStream) {
+        FileFormat fileFormat = FileFormat.of(format);
+        String id = importId == null ? UUID.randomUUID().toString() : importId;
+        return ResponseEntity.ok(personImportService.importPeople(id, fileFormat, inputStream));
+    }
+
+    @Operation(summary = "Get the progress of an import")
+    @GetMapping("admin/import/{importId}")
+    public ResponseEntity<ImportResultDTO> findImport(@Parameter(description = "id of the import") @PathVariable String importId) {
+        return ResponseEntity.ok(personImportService.findImport(importId));
+    }
+
     @Operation(summary = "List all people")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Return list",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = PersonDTO.class))}),
+            @ApiResponse(responseCode = "304", description = "Page not modified since the ETag sent in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "400", description = "Bad Request",
                     content = @Content),})
     @GetMapping
-    public ResponseEntity<Page<PersonDTO>> listAll(@ParameterObject Pageable pageable) {
-        return ResponseEntity.ok(personService.listAll(pageable));
+    public ResponseEntity<Page<PersonDTO>> listAll(@ParameterObject Pageable pageable, WebRequest request) {
+        Page<PersonDTO> people = personService.listAllWithoutPhones(pageable);
+        String eTag = PersonService.eTagOf(people);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(personService.withPhones(people));
+    }
+
+    @Operation(summary = "List people using keyset pagination, without counting the total")
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPage<PersonDTO>> listAfter(@Parameter(description = "cursor returned by the previous page, empty for the first page") @RequestParam(required = false) String after,
+                                                           @Parameter(description = "number of people per page") @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(personService.listAfter(after, size));
+    }
+
+    @Operation(summary = "Export all people with their phones as NDJSON or CSV")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format) {
+        FileFormat fileFormat = FileFormat.of(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fileFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=people." + fileFormat.getExtension())
+                .body(outputStream -> personExportService.export(fileFormat, outputStream));
     }
 
     @Operation(summary = "Get a person by id")
     @GetMapping("/{id}")
-    public ResponseEntity<PersonDTO> findById(@Parameter(description = "id of person to be searched") @PathVariable Long id) {
-        return ResponseEntity.ok(personService.findById(id));
+    public ResponseEntity<PersonDTO> findById(@Parameter(description = "id of person to be searched") @PathVariable Long id, WebRequest request) {
+        return findIfModified(id, request);
     }
 
     @Operation(summary = "Get a person by id. Authentication is required")
     @GetMapping("/by-id/{id}")
     public ResponseEntity<PersonDTO> findByIdAuthenticationPrincipal(@Parameter(description = "id of person to be searched after authentication") @PathVariable Long id,
-                                                                     @AuthenticationPrincipal UserDetails userDetails) {
-        log.info(String.valueOf(userDetails));
-        return ResponseEntity.ok(personService.findById(id));
+                                                                     @AuthenticationPrincipal UserDetails userDetails,
+                                                                     WebRequest request) {
+        log.debug("Person {} requested by {}", id, userDetails);
+        return findIfModified(id, request);
+    }
+
+    @Operation(summary = "Get a person by CPF")
+    @GetMapping("/by-cpf/{cpf}")
+    public ResponseEntity<PersonDTO> findByCpf(@Parameter(description = "CPF of the person, as 11 digits or 000.000.000-00") @PathVariable String cpf) {
+        return ResponseEntity.ok(personService.findByCpf(cpf));
+    }
+
+    @Operation(summary = "Get the person who owns a phone number")
+    @GetMapping("/by-phone/{number}")
+    public ResponseEntity<PersonDTO> findByPhoneNumber(@Parameter(description = "phone number, with or without punctuation") @PathVariable String number) {
+        return ResponseEntity.ok(personService.findByPhoneNumber(number));
     }
 
-    @Operation(summary = "Get a person by first name")
+    @Operation(summary = "Search people whose first or last name starts with the given text, ignoring case and accents")
     @GetMapping("/find")
-    public ResponseEntity<List<Person>> findByFirstName(@Parameter(description = "First name of person to be searched") @RequestParam String firstName) {
-        return ResponseEntity.ok(personService.findByFirstName(firstName));
+    public ResponseEntity<Page<PersonDTO>> search(@Parameter(description = "Beginning of the first or last name of people to be searched") @RequestParam String name,
+                                                  @ParameterObject Pageable pageable) {
+        return ResponseEntity.ok(personService.search(name, pageable));
+    }
+
+    @Operation(summary = "Typeahead search of people by any part of their first or last name, tolerating small typos, best matches first")
+    @GetMapping("/search")
+    public ResponseEntity<List<PersonSearchResultDTO>> searchNames(@Parameter(description = "part of the name, at least 2 characters") @RequestParam String q,
+                                                                   @Parameter(description = "maximum number of results") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(personSearchService.search(q, limit));
     }
 
     @Operation(summary = "Replace a person")
     @PutMapping("admin/{id}")
-    public ResponseEntity<Void> replace(@Parameter(description = "id of person to be searched") @PathVariable Long id, @RequestBody PersonDTO personDTO) {
+    public ResponseEntity<Void> replace(@Parameter(description = "id of person to be searched") @PathVariable Long id, @RequestBody @Valid PersonDTO personDTO) {
         personService.replace(id, personDTO);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
@@ -90,4 +176,17 @@ public class PersonController {
         personService.delete(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    /**
+     * Answers 304 when the version of the person, usually cached, matches If-None-Match. Otherwise sends the
+     * person with the ETag of that version.
+     */
+    private ResponseEntity<PersonDTO> findIfModified(Long id, WebRequest request) {
+        PersonDTO person = personService.findById(id);
+        String eTag = PersonService.eTagOf(person.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(person);
+    }
 }
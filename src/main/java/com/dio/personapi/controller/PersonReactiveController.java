@@ -0,0 +1,53 @@
+package com.dio.personapi.controller;
+
+import com.dio.personapi.config.ReactiveConfig;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.service.PersonReactiveService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads of people. The request thread is released while R2DBC queries run; lists are
+ * streamed as NDJSON with backpressure, or collected into a JSON array when only JSON is accepted.
+ */
+@RestController
+@RequestMapping("/api/v1/people/reactive")
+@Slf4j
+@ConditionalOnProperty(name = ReactiveConfig.ENABLED_PROPERTY, havingValue = "true")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class PersonReactiveController {
+
+    private final PersonReactiveService personReactiveService;
+
+    @Operation(summary = "Get a person by id without blocking a request thread")
+    @GetMapping("/{id}")
+    public Mono<PersonDTO> findById(@Parameter(description = "id of person to be searched") @PathVariable Long id) {
+        return personReactiveService.findById(id);
+    }
+
+    @Operation(summary = "Stream people after a cursor, ordered by id")
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<PersonDTO> listAfter(@Parameter(description = "cursor of the last person received, empty to start from the first") @RequestParam(required = false) String after,
+                                     @Parameter(description = "maximum number of people") @RequestParam(defaultValue = "100") int limit) {
+        return personReactiveService.listAfter(after, limit);
+    }
+
+    @Operation(summary = "Stream people whose first or last name starts with the given text, ignoring case and accents")
+    @GetMapping(path = "/find", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<PersonDTO> search(@Parameter(description = "Beginning of the first or last name of people to be searched") @RequestParam String name,
+                                  @Parameter(description = "maximum number of people") @RequestParam(defaultValue = "100") int limit) {
+        return personReactiveService.search(name, limit);
+    }
+}
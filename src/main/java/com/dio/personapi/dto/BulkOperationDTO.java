@@ -0,0 +1,22 @@
+package com.dio.personapi.dto;
+
+import com.dio.personapi.enums.BulkOperationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOperationDTO {
+    @NotNull(message = "The operation cannot be null")
+    private BulkOperationType operation;
+
+    private Long id;
+
+    private PersonDTO person;
+}
@@ -0,0 +1,19 @@
+package com.dio.personapi.dto;
+
+import com.dio.personapi.enums.BulkOperationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResultDTO {
+    private int index;
+    private BulkOperationType operation;
+    private Long id;
+    private int status;
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.dio.personapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    private String importId;
+    private boolean completed;
+    private long lineNumber;
+    private long skipped;
+    private long imported;
+    private long rejected;
+    private List<String> errors;
+}
@@ -1,15 +1,18 @@
 package com.dio.personapi.dto;
 
+import com.dio.personapi.validation.ValidCpf;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.validator.constraints.br.CPF;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Data
@@ -28,7 +31,7 @@ public class PersonDTO {
     private String lastName;
 
     @NotEmpty(message = "The CPF cannot be empty")
-    @CPF
+    @ValidCpf
     private String cpf;
 
     @NotNull(message = "The birthdate cannot be null")
@@ -37,4 +40,29 @@ public class PersonDTO {
     @Valid
     @NotEmpty(message = "The phone cannot be empty")
     private List<PhoneDTO> phones;
+
+    /**
+     * Row version the person was read at, sent as its ETag rather than in the body.
+     */
+    @JsonIgnore
+    private Long version;
+
+    /**
+     * Used by the repository projection queries to build the DTO straight from the result set.
+     */
+    public PersonDTO(Long id, String firstName, String lastName, String cpf, LocalDate birthDate) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.cpf = cpf;
+        this.birthDate = birthDate == null ? null : DateTimeFormatter.ISO_LOCAL_DATE.format(birthDate);
+    }
+
+    /**
+     * Used by the repository projection queries that also read the row version.
+     */
+    public PersonDTO(Long id, String firstName, String lastName, String cpf, LocalDate birthDate, Long version) {
+        this(id, firstName, lastName, cpf, birthDate);
+        this.version = version;
+    }
 }
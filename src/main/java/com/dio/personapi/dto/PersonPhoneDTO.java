@@ -0,0 +1,21 @@
+package com.dio.personapi.dto;
+
+import com.dio.personapi.enums.PhoneType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Phone row projected together with the id of the person that owns it.
+ */
+@Data
+@AllArgsConstructor
+public class PersonPhoneDTO {
+    private Long personId;
+    private Long id;
+    private PhoneType type;
+    private String number;
+
+    public PhoneDTO toPhoneDTO() {
+        return new PhoneDTO(id, type, number);
+    }
+}
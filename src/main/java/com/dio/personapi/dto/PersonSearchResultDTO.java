@@ -0,0 +1,17 @@
+package com.dio.personapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonSearchResultDTO {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private double score;
+}
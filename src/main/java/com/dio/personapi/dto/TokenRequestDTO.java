@@ -0,0 +1,21 @@
+package com.dio.personapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRequestDTO {
+
+    @NotEmpty(message = "The username cannot be empty")
+    private String username;
+
+    @NotEmpty(message = "The password cannot be empty")
+    private String password;
+}
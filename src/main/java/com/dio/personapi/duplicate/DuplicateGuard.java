@@ -0,0 +1,165 @@
+package com.dio.personapi.duplicate;
+
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.exception.DuplicateResourceException;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.validation.Cpf;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Rejects people whose CPF or phone numbers are already taken before they are inserted. Bloom filters
+ * of every stored CPF and phone number answer the common, new value case without a query; only when a
+ * filter reports a possible hit is the database asked to confirm.
+ * <p>
+ * The filters are filled from the database once the application is ready and until then every value is
+ * confirmed against the database. Values of deleted or replaced people stay in the filters, which only
+ * costs an extra confirmation query. Concurrent creates of the same value still end in a violation of
+ * a unique key, which {@link #isDuplicate(DataIntegrityViolationException)} tells apart from other
+ * integrity violations.
+ */
+@Component
+@Log4j2
+public class DuplicateGuard {
+
+    private static final String CHECKS_METER = "personapi.duplicates.checks";
+
+    private final PersonRepository personRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BloomFilter cpfs;
+    private final BloomFilter phoneNumbers;
+    private final Counter skipped;
+    private final Counter falsePositives;
+    private final Counter duplicates;
+    private volatile boolean ready;
+
+    public DuplicateGuard(PersonRepository personRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${personapi.duplicates.expected-people:1000000}") long expectedPeople,
+                          @Value("${personapi.duplicates.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.personRepository = personRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.cpfs = new BloomFilter(expectedPeople, falsePositiveProbability);
+        // people usually have one or two phones
+        this.phoneNumbers = new BloomFilter(expectedPeople * 2, falsePositiveProbability);
+        this.skipped = meterRegistry.counter(CHECKS_METER, "result", "skipped");
+        this.falsePositives = meterRegistry.counter(CHECKS_METER, "result", "false_positive");
+        this.duplicates = meterRegistry.counter(CHECKS_METER, "result", "duplicate");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> values = personRepository.streamAllCpfs()) {
+                values.map(DuplicateGuard::cpfKey).filter(Objects::nonNull).forEach(cpfs::add);
+            }
+            try (Stream<String> values = personRepository.streamAllPhoneNumbers()) {
+                values.forEach(phoneNumbers::add);
+            }
+        });
+        ready = true;
+        log.info("Loaded CPFs and phone numbers into the duplicate filters in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Throws {@link DuplicateResourceException} when the CPF or one of the phone numbers of a new person
+     * is already stored, or when the person repeats a phone number.
+     */
+    public void checkNotDuplicate(Person person) {
+        String cpfKey = cpfKey(person.getCpf());
+        if (cpfKey != null && isStored(cpfs, cpfKey, key -> personRepository.existsByCpf(person.getCpf()))) {
+            throw new DuplicateResourceException("A person with CPF " + person.getCpf() + " already exists");
+        }
+        if (person.getPhones() == null) {
+            return;
+        }
+        Set<String> numbers = new HashSet<>();
+        for (Phone phone : person.getPhones()) {
+            String number = Phone.canonicalNumber(phone.getNumber());
+            if (number == null) {
+                continue;
+            }
+            if (!numbers.add(number) || isStored(phoneNumbers, number, personRepository::existsPhoneByNumber)) {
+                throw new DuplicateResourceException("The phone number " + number + " is already in use");
+            }
+        }
+    }
+
+    /**
+     * Records the CPF and phone numbers of a stored person. Call it once the person is committed.
+     */
+    public void add(Person person) {
+        String cpfKey = cpfKey(person.getCpf());
+        if (cpfKey != null) {
+            cpfs.add(cpfKey);
+        }
+        if (person.getPhones() != null) {
+            person.getPhones().stream()
+                    .map(phone -> Phone.canonicalNumber(phone.getNumber()))
+                    .filter(Objects::nonNull)
+                    .forEach(phoneNumbers::add);
+        }
+    }
+
+    /**
+     * Whether {@code ex} broke the unique key of CPFs or of phone numbers, rather than another constraint.
+     * Databases report the key in their own way, such as {@code person.uk_person_cpf_number} on MySQL or
+     * {@code "PUBLIC.UK_PERSON_CPF_NUMBER_INDEX_8 ON PUBLIC.PERSON(CPF_NUMBER) VALUES 1"} on H2.
+     */
+    public static boolean isDuplicate(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraint = ((ConstraintViolationException) cause).getConstraintName();
+                if (constraint == null) {
+                    return false;
+                }
+                constraint = constraint.toLowerCase(Locale.ROOT);
+                return constraint.contains(Person.CPF_KEY) || constraint.contains(Phone.NUMBER_KEY);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * CPFs are filtered by their numeric value, so every way of writing the same CPF is the same key.
+     */
+    private static String cpfKey(String cpf) {
+        long cpfNumber = Cpf.parse(cpf);
+        return cpfNumber == Cpf.INVALID ? null : Long.toString(cpfNumber);
+    }
+
+    private boolean isStored(BloomFilter filter, String value, Predicate<String> existsInDatabase) {
+        if (ready && !filter.mightContain(value)) {
+            skipped.increment();
+            return false;
+        }
+        if (existsInDatabase.test(value)) {
+            duplicates.increment();
+            return true;
+        }
+        if (ready) {
+            falsePositives.increment();
+        }
+        return false;
+    }
+}
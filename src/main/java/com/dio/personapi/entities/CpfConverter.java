@@ -0,0 +1,32 @@
+package com.dio.personapi.entities;
+
+import com.dio.personapi.validation.Cpf;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores CPFs as their numeric value in a BIGINT column, which makes a much smaller unique index than
+ * text, and reads them back in the {@code 000.000.000-00} form. Negative values mark legacy rows whose
+ * CPF could not be migrated, see {@code DataMigrations}, and read as null.
+ */
+@Converter
+public class CpfConverter implements AttributeConverter<String, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(String cpf) {
+        if (cpf == null) {
+            return null;
+        }
+        long value = Cpf.parse(cpf);
+        if (value == Cpf.INVALID) {
+            throw new IllegalArgumentException("Invalid CPF: " + cpf);
+        }
+        return value;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long value) {
+        return value == null || value < 0 ? null : Cpf.format(value);
+    }
+}
@@ -0,0 +1,39 @@
+package com.dio.personapi.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a file import, saved in the transaction of every chunk so a failed import can resume
+ * after the last line it stored.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class ImportCheckpoint {
+    @Id
+    private String importId;
+
+    @Column(nullable = false)
+    private long lineNumber;
+
+    @Column(nullable = false)
+    private long imported;
+
+    @Column(nullable = false)
+    private long rejected;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    private LocalDateTime updatedAt;
+}
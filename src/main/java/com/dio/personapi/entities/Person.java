@@ -1,29 +1,58 @@
 package com.dio.personapi.entities;
 
+import com.dio.personapi.validation.Cpf;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.OneToMany;
 import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.JoinColumn;
 import javax.persistence.CascadeType;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.text.Normalizer;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_person_first_name_key", columnList = "firstNameKey"),
+        @Index(name = "idx_person_last_name_key", columnList = "lastNameKey")},
+        uniqueConstraints = @UniqueConstraint(name = Person.CPF_KEY, columnNames = "cpf_number"))
 public class Person {
+    public static final String CPF_KEY = "uk_person_cpf_number";
+
+    /**
+     * Ids are taken from a pooled sequence (a table on MySQL) instead of IDENTITY columns,
+     * so Hibernate knows them before inserting and can send inserts as JDBC batches.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -32,13 +61,79 @@ public class Person {
     @Column(nullable = false)
     private String lastName;
 
-    @Column(nullable = false, unique = true)
+    /**
+     * Stored as its numeric value, see {@link CpfConverter}.
+     */
+    @Convert(converter = CpfConverter.class)
+    @Column(name = "cpf_number", nullable = false)
     private String cpf;
 
+    /**
+     * Search keys of the names, see {@link #nameKey(String)}. Kept in their own indexed columns so that
+     * prefix searches are index range scans on every database, without functions on the column.
+     */
+    private String firstNameKey;
+
+    private String lastNameKey;
+
     @Column(columnDefinition = "Date")
     private LocalDate birthDate;
 
+    /**
+     * Row version, incremented on every update, phones included. Also used as the person's ETag.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Mapped by a foreign key on the phone instead of a join table. It is set in the phone insert and never
+     * changed, so phones replaced in the list are deleted rather than unlinked.
+     */
+    @BatchSize(size = 100)
     @OneToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST,
-                       CascadeType.MERGE, CascadeType.REMOVE})
+                       CascadeType.MERGE, CascadeType.REMOVE}, orphanRemoval = true)
+    @JoinColumn(name = "person_id", nullable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_phone_person"))
     private List<Phone> phones;
+
+    @PrePersist
+    @PreUpdate
+    void updateDerivedFields() {
+        firstNameKey = nameKey(firstName);
+        lastNameKey = nameKey(lastName);
+        long cpfNumber = Cpf.parse(cpf);
+        if (cpfNumber != Cpf.INVALID) {
+            cpf = Cpf.format(cpfNumber);
+        }
+    }
+
+    /**
+     * Gives the phones of this replacement of {@code stored} the ids of the stored phones with the same number,
+     * so that merging it updates them. New phones are inserted before orphans are deleted, so a kept number
+     * would otherwise break the unique constraint on phone numbers.
+     */
+    public void reusePhoneIds(Person stored) {
+        if (phones == null || stored.getPhones() == null) {
+            return;
+        }
+        Map<String, Long> storedIds = new HashMap<>();
+        for (Phone phone : stored.getPhones()) {
+            storedIds.put(phone.getNumber(), phone.getId());
+        }
+        for (Phone phone : phones) {
+            phone.setId(storedIds.remove(Phone.canonicalNumber(phone.getNumber())));
+        }
+    }
+
+    /**
+     * Lower case form of a name without accents, so that "jose" finds "José".
+     */
+    public static String nameKey(String name) {
+        if (name == null) {
+            return null;
+        }
+        return Normalizer.normalize(name.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
 }
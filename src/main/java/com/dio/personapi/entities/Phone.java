@@ -13,21 +13,61 @@ import javax.persistence.Id;
 import javax.persistence.Column;
 import javax.persistence.EnumType;
 import javax.persistence.GenerationType;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Phone.NUMBER_KEY, columnNames = "number"))
 public class Phone {
+    public static final String NUMBER_KEY = "uk_phone_number";
+
+    private static final String COUNTRY_CODE = "55";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "phone_seq")
+    @SequenceGenerator(name = "phone_seq", sequenceName = "phone_seq", allocationSize = Person.ID_ALLOCATION_SIZE)
     Long id;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     PhoneType type;
 
-    @Column(nullable = false, unique = true)
+    /**
+     * Stored in its {@link #canonicalNumber(String) canonical form}, so lookups by number hit the unique index
+     * however the number was written.
+     */
+    @Column(nullable = false)
     String number;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeNumber() {
+        number = canonicalNumber(number);
+    }
+
+    /**
+     * Brazilian numbers as {@code (DD)NNNN-NNNN} or {@code (DD)NNNNN-NNNN}, whatever punctuation and spacing
+     * they were written with, without the 55 country code. Numbers of other lengths are only trimmed.
+     */
+    public static String canonicalNumber(String number) {
+        if (number == null) {
+            return null;
+        }
+        String digits = number.replaceAll("\\D", "");
+        if ((digits.length() == 12 || digits.length() == 13) && digits.startsWith(COUNTRY_CODE)) {
+            digits = digits.substring(COUNTRY_CODE.length());
+        }
+        if (digits.length() != 10 && digits.length() != 11) {
+            return number.trim();
+        }
+        int lineStart = digits.length() - 4;
+        return "(" + digits.substring(0, 2) + ")" + digits.substring(2, lineStart) + "-" + digits.substring(lineStart);
+    }
 }
@@ -0,0 +1,14 @@
+package com.dio.personapi.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum BulkOperationType {
+    CREATE("Create"),
+    REPLACE("Replace"),
+    DELETE("Delete");
+
+    private final String description;
+}
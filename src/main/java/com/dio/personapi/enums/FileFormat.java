@@ -0,0 +1,24 @@
+package com.dio.personapi.enums;
+
+import com.dio.personapi.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum FileFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    public static FileFormat of(String format) {
+        for (FileFormat fileFormat : values()) {
+            if (fileFormat.name().equalsIgnoreCase(format) || fileFormat.extension.equalsIgnoreCase(format)) {
+                return fileFormat;
+            }
+        }
+        throw new BadRequestException("Unsupported file format: " + format);
+    }
+}
@@ -0,0 +1,14 @@
+package com.dio.personapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateResourceException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DuplicateResourceException(String message) {
+        super(message);
+    }
+}
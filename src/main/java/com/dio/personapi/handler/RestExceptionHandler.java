@@ -1,13 +1,18 @@
 package com.dio.personapi.handler;
 
+import com.dio.personapi.duplicate.DuplicateGuard;
+import com.dio.personapi.exception.BadRequestException;
+import com.dio.personapi.exception.DuplicateResourceException;
 import com.dio.personapi.exception.ResourceNotFoundException;
 import com.dio.personapi.exception.ExceptionDetails;
 import com.dio.personapi.exception.ValidationExceptionsDetails;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -40,6 +45,86 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(exceptionDetails, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ExceptionDetails> handleBadRequestExceptionResponseEntity
+            (BadRequestException ex) {
+
+        ExceptionDetails exceptionDetails = ExceptionDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .title("Bad request")
+                .details(ex.getMessage())
+                .debugMessage(ex.getClass().getName())
+                .build();
+
+        return new ResponseEntity<>(exceptionDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(DuplicateResourceException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ExceptionDetails> handleDuplicateResourceExceptionResponseEntity
+            (DuplicateResourceException ex) {
+
+        ExceptionDetails exceptionDetails = ExceptionDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .title("Duplicate resource")
+                .details(ex.getMessage())
+                .debugMessage(ex.getClass().getName())
+                .build();
+
+        return new ResponseEntity<>(exceptionDetails, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Duplicate CPFs or phone numbers the duplicate pre-check could not see, such as two concurrent creates,
+     * are conflicts. Any other integrity violation is a bug the validation should have caught.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ExceptionDetails> handleDataIntegrityViolationExceptionResponseEntity
+            (DataIntegrityViolationException ex) {
+
+        if (!DuplicateGuard.isDuplicate(ex)) {
+            log.error("Data integrity violation", ex);
+            ExceptionDetails exceptionDetails = ExceptionDetails.builder()
+                    .timestamp(LocalDateTime.now())
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                    .title("Data integrity violation")
+                    .details("The request could not be stored")
+                    .debugMessage(ex.getClass().getName())
+                    .build();
+
+            return new ResponseEntity<>(exceptionDetails, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        ExceptionDetails exceptionDetails = ExceptionDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .title("Duplicate resource")
+                .details("The request conflicts with data already stored")
+                .debugMessage(ex.getClass().getName())
+                .build();
+
+        return new ResponseEntity<>(exceptionDetails, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    @ResponseStatus(HttpStatus.UNAUTHORIZED)
+    public ResponseEntity<ExceptionDetails> handleAuthenticationExceptionResponseEntity
+            (AuthenticationException ex) {
+
+        ExceptionDetails exceptionDetails = ExceptionDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.UNAUTHORIZED.value())
+                .title("Unauthorized")
+                .details(ex.getMessage())
+                .debugMessage(ex.getClass().getName())
+                .build();
+
+        return new ResponseEntity<>(exceptionDetails, HttpStatus.UNAUTHORIZED);
+    }
+
     @Override
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
@@ -0,0 +1,154 @@
+package com.dio.personapi.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts and stops a Java Flight Recorder recording of the application, at {@code /actuator/jfr}:
+ * <ul>
+ *     <li>{@code POST} starts it with the {@code settings} of the JDK, {@code profile} by default, stopping by
+ *     itself after the optional {@code duration}, such as {@code 5m}</li>
+ *     <li>{@code DELETE} stops it and returns the recording file, to open in JDK Mission Control</li>
+ *     <li>{@code GET} tells whether a recording is in progress</li>
+ * </ul>
+ * Besides the JDK events, recordings hold the {@link ServiceEvent service}, {@link QueryEvent query} and
+ * {@link MappingEvent mapping} events of the application. A single recording runs at a time, keeping at most
+ * {@code maxAge} and {@code maxSize} of events, and without the environment variables and system properties
+ * of the process. The endpoint is restricted to administrators by the security configuration.
+ */
+@WebEndpoint(id = "jfr")
+@Log4j2
+public class FlightRecorderEndpoint {
+
+    private static final String DEFAULT_SETTINGS = "profile";
+    private static final int STATUS_CONFLICT = 409;
+    /**
+     * Events of the JDK holding the environment variables and system properties of the process, and so the token
+     * secret and datasource credentials, left out of every recording.
+     */
+    private static final List<String> SECRET_EVENTS = List.of("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private Recording recording;
+
+    public FlightRecorderEndpoint(Duration maxAge, DataSize maxSize) {
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("recording", recording != null);
+        if (recording != null) {
+            status.put("state", recording.getState());
+            status.put("settings", recording.getName());
+            status.put("startTime", recording.getStartTime());
+            status.put("size", recording.getSize());
+        }
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable String settings, @Nullable Duration duration)
+            throws IOException {
+        if (recording != null) {
+            return new WebEndpointResponse<>(Map.of("error", "A recording is already in progress"), STATUS_CONFLICT);
+        }
+        String settingsName = settings == null ? DEFAULT_SETTINGS : settings;
+        Configuration configuration = Configuration.getConfigurations().stream()
+                .filter(candidate -> candidate.getName().equals(settingsName))
+                .findFirst()
+                .orElse(null);
+        if (configuration == null) {
+            return new WebEndpointResponse<>(Map.of("error", "Unknown JFR settings: " + settingsName),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Map<String, String> recordingSettings = new HashMap<>(configuration.getSettings());
+        for (String event : SECRET_EVENTS) {
+            recordingSettings.put(event + "#enabled", "false");
+        }
+        Recording newRecording = new Recording(recordingSettings);
+        newRecording.setName(settingsName);
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(maxAge);
+        newRecording.setMaxSize(maxSize.toBytes());
+        newRecording.setDuration(duration);
+        newRecording.start();
+        recording = newRecording;
+        log.info("Started a JFR recording with the {} settings", settingsName);
+        return new WebEndpointResponse<>(status());
+    }
+
+    @DeleteOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> stop() throws IOException {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Path file = Files.createTempFile("personapi-", ".jfr");
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            recording.dump(file);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+        log.info("Stopped the JFR recording, {} bytes", Files.size(file));
+        return new WebEndpointResponse<>(new TemporaryFileResource(file.toFile()));
+    }
+
+    /**
+     * Deletes the recording file once it has been sent.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(File file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.dio.personapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dio.personapi.Mapping")
+@Label("Mapping")
+@Category({"Person API", "Mapper"})
+@Description("Conversion between entities, DTOs and CSV lines")
+@StackTrace(false)
+public class MappingEvent extends Event {
+
+    @Label("Mapper")
+    public String mapper;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Source Type")
+    public String sourceType;
+}
@@ -0,0 +1,31 @@
+package com.dio.personapi.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+/**
+ * Records the calls of mappers as {@link MappingEvent}s while a recording enables them.
+ */
+public class MappingEventInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MappingEvent event = new MappingEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        try {
+            return invocation.proceed();
+        } finally {
+            if (event.shouldCommit()) {
+                Object[] arguments = invocation.getArguments();
+                event.mapper = AopUtils.getTargetClass(invocation.getThis()).getSimpleName();
+                event.method = invocation.getMethod().getName();
+                event.sourceType = arguments.length == 0 || arguments[0] == null ? null : arguments[0].getClass().getSimpleName();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.dio.personapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.dio.personapi.Query")
+@Label("Repository Query")
+@Category({"Person API", "Repository"})
+@Description("JDBC statement executed for a repository, until its result set is closed")
+public class QueryEvent extends Event {
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows")
+    @Description("Rows read from the result set, or updated, -1 when unknown")
+    public long rows;
+
+    @Label("Batch")
+    public boolean batch;
+}
@@ -0,0 +1,26 @@
+package com.dio.personapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dio.personapi.Service")
+@Label("Service Operation")
+@Category({"Person API", "Service"})
+@Description("Call of a service method, including its transaction, cache and repository calls")
+@StackTrace(false)
+public class ServiceEvent extends Event {
+
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Exception")
+    @Description("Simple name of the exception thrown, if any")
+    public String exception;
+}
@@ -0,0 +1,162 @@
+package com.dio.personapi.mapper;
+
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PhoneDTO;
+import com.dio.personapi.enums.PhoneType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps people to and from CSV lines. Phones are packed in a single column as {@code TYPE:number}
+ * pairs separated by {@code |}.
+ */
+@Component
+public class PersonCsvMapper {
+
+    public static final String HEADER = "id,firstName,lastName,cpf,birthDate,phones";
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char PHONE_SEPARATOR = '|';
+    private static final char PHONE_TYPE_SEPARATOR = ':';
+
+    public String toCsvLine(PersonDTO person) {
+        StringBuilder line = new StringBuilder(128);
+        appendField(line, person.getId() == null ? null : person.getId().toString()).append(SEPARATOR);
+        appendField(line, person.getFirstName()).append(SEPARATOR);
+        appendField(line, person.getLastName()).append(SEPARATOR);
+        appendField(line, person.getCpf()).append(SEPARATOR);
+        appendField(line, person.getBirthDate()).append(SEPARATOR);
+        appendField(line, phonesField(person.getPhones()));
+        return line.toString();
+    }
+
+    /**
+     * Parses a record written by {@link #toCsvLine(PersonDTO)}. A quoted field may span lines,
+     * in which case the record holds all of them.
+     *
+     * @throws IllegalArgumentException when the record is malformed
+     */
+    public PersonDTO fromCsvLine(String record) {
+        List<String> fields = splitFields(record);
+        if (fields.size() != 6) {
+            throw new IllegalArgumentException("Expected 6 fields but found " + fields.size());
+        }
+        return PersonDTO.builder()
+                .id(fields.get(0) == null ? null : Long.valueOf(fields.get(0)))
+                .firstName(fields.get(1))
+                .lastName(fields.get(2))
+                .cpf(fields.get(3))
+                .birthDate(fields.get(4))
+                .phones(parsePhones(fields.get(5)))
+                .build();
+    }
+
+    /**
+     * Whether the record ends inside a quoted field, meaning the next line belongs to it.
+     */
+    public boolean isIncomplete(CharSequence record) {
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == QUOTE) {
+                quoted = !quoted;
+            }
+        }
+        return quoted;
+    }
+
+    private static List<String> splitFields(String record) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == QUOTE && i + 1 < record.length() && record.charAt(i + 1) == QUOTE) {
+                    field.append(QUOTE);
+                    i++;
+                } else if (c == QUOTE) {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+                empty = false;
+            } else if (c == SEPARATOR) {
+                fields.add(empty ? null : field.toString());
+                field.setLength(0);
+                empty = true;
+            } else {
+                field.append(c);
+                empty = false;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(empty ? null : field.toString());
+        return fields;
+    }
+
+    private static List<PhoneDTO> parsePhones(String field) {
+        List<PhoneDTO> phones = new ArrayList<>();
+        if (field == null) {
+            return phones;
+        }
+        int start = 0;
+        while (start <= field.length()) {
+            int end = field.indexOf(PHONE_SEPARATOR, start);
+            if (end < 0) {
+                end = field.length();
+            }
+            int typeEnd = field.indexOf(PHONE_TYPE_SEPARATOR, start);
+            if (typeEnd < 0 || typeEnd > end) {
+                throw new IllegalArgumentException("Phone must be written as TYPE:number");
+            }
+            phones.add(PhoneDTO.builder()
+                    .type(PhoneType.valueOf(field.substring(start, typeEnd)))
+                    .number(field.substring(typeEnd + 1, end))
+                    .build());
+            start = end + 1;
+        }
+        return phones;
+    }
+
+    private static String phonesField(List<PhoneDTO> phones) {
+        if (phones == null || phones.isEmpty()) {
+            return null;
+        }
+        StringBuilder field = new StringBuilder(32 * phones.size());
+        for (PhoneDTO phone : phones) {
+            if (field.length() > 0) {
+                field.append(PHONE_SEPARATOR);
+            }
+            field.append(phone.getType()).append(PHONE_TYPE_SEPARATOR).append(phone.getNumber());
+        }
+        return field.toString();
+    }
+
+    private static StringBuilder appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quoted = value.indexOf(SEPARATOR) >= 0 || value.indexOf(QUOTE) >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quoted) {
+            return line.append(value);
+        }
+        line.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                line.append(QUOTE);
+            }
+            line.append(c);
+        }
+        return line.append(QUOTE);
+    }
+}
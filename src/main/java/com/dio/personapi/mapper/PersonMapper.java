@@ -12,8 +12,18 @@ public interface PersonMapper {
     PersonMapper INSTANCE = Mappers.getMapper(PersonMapper.class);
 
     @Mapping(target = "birthDate", source = "birthDate", dateFormat = "dd-MM-yyyy")
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "firstNameKey", ignore = true)
+    @Mapping(target = "lastNameKey", ignore = true)
     Person toModel(PersonDTO personDTO);
 
     PersonDTO toDTO(Person person);
 
+    /**
+     * Same as {@link #toDTO(Person)} but with the birth date in the format {@link #toModel(PersonDTO)} reads,
+     * so exported people can be imported back.
+     */
+    @Mapping(target = "birthDate", source = "birthDate", dateFormat = "dd-MM-yyyy")
+    PersonDTO toExportDTO(Person person);
+
 }
@@ -0,0 +1,105 @@
+package com.dio.personapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per session counts and times of a Hibernate session, recorded when it ends under the {@link MetricsTags}
+ * endpoint and outcome of the current request. With open session in view a request uses a single session,
+ * so each sample is the work of one request: JDBC statements and their execution time, flushes and flushed
+ * entities, the wait for a pooled connection and how long the connection was held.
+ * <p>
+ * Hibernate creates one listener per session through {@code hibernate.session.events.auto}, so the
+ * listener records to the global registry, which Spring Boot binds to its own.
+ */
+public class HibernateSessionMetrics extends BaseSessionEventListener {
+
+    private static final String PREFIX = "personapi.hibernate.session.";
+
+    private long statements;
+    private long statementStart;
+    private long statementNanos;
+    private long flushes;
+    private long flushedEntities;
+    private long acquisitionStart;
+    private long acquisitionNanos;
+    private long acquiredAt;
+    private long connectionNanos;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisitionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        acquiredAt = System.nanoTime();
+        acquisitionNanos += acquiredAt - acquisitionStart;
+    }
+
+    @Override
+    public void jdbcConnectionReleaseEnd() {
+        connectionNanos += System.nanoTime() - acquiredAt;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statements++;
+        statementNanos += System.nanoTime() - statementStart;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        statements++;
+        statementNanos += System.nanoTime() - statementStart;
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        flushes++;
+        flushedEntities += numberOfEntities;
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        flushes++;
+        flushedEntities += numberOfEntities;
+    }
+
+    @Override
+    public void end() {
+        if (statements == 0 && acquisitionNanos == 0 && flushes == 0) {
+            return;
+        }
+        Tags tags = Tags.of(MetricsTags.endpoint(), MetricsTags.responseOutcome());
+        summary("statements", "JDBC statements and batches executed by a session", tags).record(statements);
+        timer("statement.time", "Time a session spent executing JDBC statements", tags).record(statementNanos, TimeUnit.NANOSECONDS);
+        summary("flushes", "Flushes of a session", tags).record(flushes);
+        summary("flushed.entities", "Entities flushed by a session", tags).record(flushedEntities);
+        timer("connection.acquire", "Time a session waited for pooled connections", tags).record(acquisitionNanos, TimeUnit.NANOSECONDS);
+        timer("connection.usage", "Time a session held pooled connections", tags).record(connectionNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static DistributionSummary summary(String name, String description, Tags tags) {
+        return DistributionSummary.builder(PREFIX + name).description(description).tags(tags).register(Metrics.globalRegistry);
+    }
+
+    private static Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(PREFIX + name).description(description).tags(tags).register(Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.dio.personapi.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tags shared by the timers of every layer, so that dashboards can break down a request the same way at each
+ * of them: {@code endpoint}, the HTTP method and route template of the current request, and {@code outcome},
+ * with the values of the {@code http.server.requests} outcome tag.
+ */
+public final class MetricsTags {
+
+    public static final String ENDPOINT = "endpoint";
+    public static final String EXCEPTION = "exception";
+
+    private static final Tag ENDPOINT_NONE = Tag.of(ENDPOINT, "none");
+    private static final Tag EXCEPTION_NONE = Tag.of(EXCEPTION, "None");
+
+    private MetricsTags() {
+    }
+
+    /**
+     * Endpoint of the request handled by the current thread, such as {@code GET /api/v1/people/{id}}, or
+     * {@code none} outside of a request or before its handler is chosen.
+     */
+    public static Tag endpoint() {
+        HttpServletRequest request = currentRequest();
+        return request == null ? ENDPOINT_NONE : endpoint(request);
+    }
+
+    public static Tag endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? ENDPOINT_NONE : Tag.of(ENDPOINT, request.getMethod() + " " + pattern);
+    }
+
+    /**
+     * Outcome of a call that threw {@code exception}, or succeeded when it is null. Exceptions annotated with
+     * a 4xx {@link ResponseStatus} are client errors, any other exception is a server error.
+     */
+    public static Tag outcome(Throwable exception) {
+        if (exception == null) {
+            return Outcome.SUCCESS.asTag();
+        }
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(exception.getClass(), ResponseStatus.class);
+        return responseStatus == null ? Outcome.SERVER_ERROR.asTag() : Outcome.forStatus(responseStatus.code().value()).asTag();
+    }
+
+    /**
+     * Outcome of the response of the current request so far, or {@code UNKNOWN} outside of a request.
+     */
+    public static Tag responseOutcome() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        HttpServletResponse response = attributes instanceof ServletRequestAttributes
+                ? ((ServletRequestAttributes) attributes).getResponse()
+                : null;
+        return response == null ? Outcome.UNKNOWN.asTag() : Outcome.forStatus(response.getStatus()).asTag();
+    }
+
+    public static Tag exception(Throwable exception) {
+        return exception == null ? EXCEPTION_NONE : Tag.of(EXCEPTION, exception.getClass().getSimpleName());
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes) attributes).getRequest() : null;
+    }
+}
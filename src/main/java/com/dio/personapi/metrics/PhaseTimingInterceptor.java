@@ -0,0 +1,31 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.metrics.RequestPhases.Phase;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Adds the calls made during sampled requests to a {@link Phase}.
+ */
+public class PhaseTimingInterceptor implements MethodInterceptor {
+
+    private final Phase phase;
+
+    public PhaseTimingInterceptor(Phase phase) {
+        this.phase = phase;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RequestPhases phases = RequestPhases.current();
+        if (phases == null) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            phases.add(phase, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.metrics.RequestPhases.Phase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Adds the time spent reading and writing the JSON bodies of sampled requests to the {@link Phase#JACKSON}
+ * phase. Their responses are serialized to a buffer before being written, so that the phase leaves out the
+ * time the client takes to receive them and is known before the response is committed.
+ */
+public class PhaseTimingJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+    public PhaseTimingJacksonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        RequestPhases phases = RequestPhases.current();
+        if (phases == null) {
+            return super.read(type, contextClass, inputMessage);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.read(type, contextClass, inputMessage);
+        } finally {
+            phases.add(Phase.JACKSON, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        RequestPhases phases = RequestPhases.current();
+        if (phases == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        try {
+            super.writeInternal(object, type, new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return buffer;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+        } finally {
+            phases.add(Phase.JACKSON, System.nanoTime() - start);
+        }
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
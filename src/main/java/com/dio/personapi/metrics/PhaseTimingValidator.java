@@ -0,0 +1,47 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.metrics.RequestPhases.Phase;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Adds the time of the validations of sampled requests to the {@link Phase#VALIDATION} phase.
+ */
+public class PhaseTimingValidator implements SmartValidator {
+
+    private final SmartValidator validator;
+
+    public PhaseTimingValidator(SmartValidator validator) {
+        this.validator = validator;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return validator.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        validate(target, errors, new Object[0]);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        RequestPhases phases = RequestPhases.current();
+        if (phases == null) {
+            validator.validate(target, errors, validationHints);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            validator.validate(target, errors, validationHints);
+        } finally {
+            phases.add(Phase.VALIDATION, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void validateValue(Class<?> targetType, String fieldName, Object value, Errors errors, Object... validationHints) {
+        validator.validateValue(targetType, fieldName, value, errors, validationHints);
+    }
+}
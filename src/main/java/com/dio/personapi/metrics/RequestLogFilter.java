@@ -0,0 +1,68 @@
+package com.dio.personapi.metrics;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs a sample of the requests as {@code key=value} pairs on the {@code personapi.requests} logger, such as
+ * {@code method=GET endpoint="GET /api/v1/people/{id}" status=200 duration_us=2150 queries=2 rows=1}. Server
+ * errors, including exceptions left to the error page, are always logged, at warn level. Requests left out of
+ * the sample only pay for a random number, and all of them pay nothing more while the logger is off.
+ * <p>
+ * It must run within the {@link RequestStatementsFilter}, to log the statements of the request.
+ */
+@Log4j2(topic = "personapi.requests")
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    private static final int SERVER_ERROR = 500;
+
+    private final double sampleRate;
+
+    public RequestLogFilter(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!log.isWarnEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean sampled = log.isInfoEnabled() && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            int status = failed ? SERVER_ERROR : response.getStatus();
+            if (sampled || status >= SERVER_ERROR) {
+                log(request, status, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, int status, long nanos) {
+        RequestStatements statements = RequestStatements.current();
+        String endpoint = MetricsTags.endpoint(request).getValue();
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        long queries = statements == null ? 0 : statements.getQueries();
+        long rows = statements == null ? 0 : statements.getRows();
+        if (status >= SERVER_ERROR) {
+            log.warn("method={} endpoint=\"{}\" status={} duration_us={} queries={} rows={}", request.getMethod(), endpoint,
+                    status, micros, queries, rows);
+        } else {
+            log.info("method={} endpoint=\"{}\" status={} duration_us={} queries={} rows={}", request.getMethod(), endpoint,
+                    status, micros, queries, rows);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.dio.personapi.metrics;
+
+import java.util.Locale;
+
+/**
+ * Time a sampled request spent in each phase of its handling, for the {@code Server-Timing} header and the
+ * {@code personapi.request.phase} timers. {@link ServerTimingFilter} starts and ends the phases of sampled
+ * requests only, so that instrumented code pays a single thread local lookup on the others.
+ */
+public final class RequestPhases {
+
+    public enum Phase {
+        AUTH("auth", "Authentication and authorization"),
+        VALIDATION("validation", "Bean validation"),
+        REPOSITORY("repository", "Repository calls"),
+        MAPPER("mapper", "Entity and DTO mapping"),
+        JACKSON("jackson", "JSON reading and writing");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final ThreadLocal<RequestPhases> CURRENT = new ThreadLocal<>();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long start = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private boolean authenticated;
+
+    private RequestPhases() {
+    }
+
+    static RequestPhases start() {
+        RequestPhases phases = new RequestPhases();
+        CURRENT.set(phases);
+        return phases;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Phases of the sampled request handled by the current thread, or null.
+     */
+    public static RequestPhases current() {
+        return CURRENT.get();
+    }
+
+    public void add(Phase phase, long nanos) {
+        this.nanos[phase.ordinal()] += nanos;
+        counts[phase.ordinal()]++;
+    }
+
+    /**
+     * Ends the {@link Phase#AUTH} phase, which starts with the request. Later calls are ignored, so a request
+     * rejected by the security filters spends all of its time authenticating.
+     */
+    public void authenticated() {
+        if (!authenticated) {
+            authenticated = true;
+            add(Phase.AUTH, System.nanoTime() - start);
+        }
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Whether the request went through {@code phase} at least once.
+     */
+    public boolean hasPhase(Phase phase) {
+        return counts[phase.ordinal()] > 0;
+    }
+
+    /**
+     * The phases so far as a {@code Server-Timing} header value, in milliseconds, followed by the total.
+     */
+    public String serverTiming() {
+        authenticated();
+        StringBuilder header = new StringBuilder(160);
+        for (Phase phase : PHASES) {
+            if (hasPhase(phase)) {
+                appendMetric(header, phase.metricName, nanos[phase.ordinal()]).append(";desc=\"").append(phase.description).append("\", ");
+            }
+        }
+        return appendMetric(header, "total", System.nanoTime() - start).toString();
+    }
+
+    private static StringBuilder appendMetric(StringBuilder header, String name, long nanos) {
+        return header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+}
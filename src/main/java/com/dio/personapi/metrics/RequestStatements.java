@@ -0,0 +1,86 @@
+package com.dio.personapi.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JDBC statements executed by the thread handling an HTTP request: how many, the rows read from their result
+ * sets and the time spent executing them. Statements are also counted per SQL string, as a query repeated
+ * once per row of an earlier one, the N+1 pattern of lazy associations, shows up as one SQL string executed
+ * many times with different bind values.
+ * <p>
+ * {@link RequestStatementsFilter} starts and ends the statistics of each request and
+ * {@link StatementCountingDataSource} records into them. Work handed to other threads, such as streamed
+ * exports, is not counted.
+ */
+public final class RequestStatements {
+
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private int queries;
+    private long rows;
+    private long nanos;
+    private int maxExecutions;
+    private String mostExecutedSql;
+
+    private RequestStatements() {
+    }
+
+    static RequestStatements start() {
+        RequestStatements statements = new RequestStatements();
+        CURRENT.set(statements);
+        return statements;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Statistics of the request handled by the current thread, or null outside of a request.
+     */
+    static RequestStatements current() {
+        return CURRENT.get();
+    }
+
+    void executed(String sql, long nanos) {
+        queries++;
+        this.nanos += nanos;
+        if (sql == null) {
+            return;
+        }
+        int executions = executionsBySql.merge(sql, 1, Integer::sum);
+        if (executions > maxExecutions) {
+            maxExecutions = executions;
+            mostExecutedSql = sql;
+        }
+    }
+
+    void rowRead() {
+        rows++;
+    }
+
+    public int getQueries() {
+        return queries;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Executions of the SQL string executed most often, 1 when no statement was repeated.
+     */
+    public int getMaxExecutions() {
+        return maxExecutions;
+    }
+
+    public String getMostExecutedSql() {
+        return mostExecutedSql;
+    }
+}
@@ -0,0 +1,120 @@
+package com.dio.personapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the {@link RequestStatements} of each request and records them as {@code personapi.request.*}
+ * meters tagged with the endpoint and outcome. Requests that execute the same SQL string at least
+ * {@code repeatedQueryThreshold} times are logged as a likely N+1 and counted.
+ * <p>
+ * When {@code responseHeaders} is on, the statistics are also sent as {@code X-Query-*} headers, set when the
+ * response is committed, so streamed responses only report the statements executed before their first byte.
+ */
+@Log4j2
+public class RequestStatementsFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_ROWS_HEADER = "X-Query-Rows";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time";
+    public static final String QUERY_MAX_EXECUTIONS_HEADER = "X-Query-Max-Executions";
+
+    private static final String PREFIX = "personapi.request.";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean responseHeaders;
+    private final int repeatedQueryThreshold;
+
+    public RequestStatementsFilter(MeterRegistry meterRegistry, boolean responseHeaders, int repeatedQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.responseHeaders = responseHeaders;
+        this.repeatedQueryThreshold = repeatedQueryThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestStatements statements = RequestStatements.start();
+        try {
+            if (responseHeaders) {
+                HeaderWriter headerWriter = new HeaderWriter(response, statements);
+                filterChain.doFilter(request, headerWriter);
+                headerWriter.onResponseCommitted();
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            RequestStatements.end();
+            record(request, response, statements);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, RequestStatements statements) {
+        if (statements.getQueries() == 0) {
+            return;
+        }
+        Tags tags = Tags.of(MetricsTags.endpoint(request), Outcome.forStatus(response.getStatus()).asTag());
+        DistributionSummary.builder(PREFIX + "queries")
+                .description("JDBC statements executed by a request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statements.getQueries());
+        DistributionSummary.builder(PREFIX + "rows")
+                .description("Rows read by the JDBC statements of a request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statements.getRows());
+        Timer.builder(PREFIX + "query.time")
+                .description("Time a request spent executing JDBC statements")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statements.getNanos(), TimeUnit.NANOSECONDS);
+        if (statements.getMaxExecutions() >= repeatedQueryThreshold) {
+            meterRegistry.counter(PREFIX + "repeated.queries", tags).increment();
+            log.warn("{} {} executed the same statement {} times, a likely N+1 query: {}", request.getMethod(),
+                    request.getRequestURI(), statements.getMaxExecutions(), statements.getMostExecutedSql());
+        }
+    }
+
+    /**
+     * Adds the headers right before the response is committed, or once the request is handled when the body
+     * fits the response buffer.
+     */
+    private static final class HeaderWriter extends OnCommittedResponseWrapper {
+
+        private final RequestStatements statements;
+        private boolean written;
+
+        private HeaderWriter(HttpServletResponse response, RequestStatements statements) {
+            super(response);
+            this.statements = statements;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (written || response.isCommitted()) {
+                return;
+            }
+            written = true;
+            response.setHeader(QUERY_COUNT_HEADER, Integer.toString(statements.getQueries()));
+            response.setHeader(QUERY_ROWS_HEADER, Long.toString(statements.getRows()));
+            response.setHeader(QUERY_TIME_HEADER, String.format(Locale.ROOT, "%.3f", statements.getNanos() / 1e6));
+            response.setHeader(QUERY_MAX_EXECUTIONS_HEADER, Integer.toString(statements.getMaxExecutions()));
+        }
+    }
+}
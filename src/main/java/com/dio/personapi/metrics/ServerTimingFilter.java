@@ -0,0 +1,111 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.metrics.RequestPhases.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link RequestPhases} of a sample of the requests, sends them in a {@code Server-Timing} header
+ * and records them as {@code personapi.request.phase} timers tagged with the phase, endpoint and outcome.
+ * <p>
+ * It must run right before the security filters, as the authentication phase lasts from its start to the
+ * {@link #authenticated() marker} that runs right after them. The header is set when the response is
+ * committed, so phases that are still running then, such as a streamed export, are left out of it.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final String PHASE_TIMER = "personapi.request.phase";
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+
+    public ServerTimingFilter(MeterRegistry meterRegistry, double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Filter ending the authentication phase of sampled requests, to be run right after the security filters.
+     */
+    public static OncePerRequestFilter authenticated() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                RequestPhases phases = RequestPhases.current();
+                if (phases != null) {
+                    phases.authenticated();
+                }
+                filterChain.doFilter(request, response);
+            }
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RequestPhases phases = RequestPhases.start();
+        HeaderWriter headerWriter = new HeaderWriter(response, phases);
+        try {
+            filterChain.doFilter(request, headerWriter);
+            headerWriter.onResponseCommitted();
+        } finally {
+            RequestPhases.end();
+            record(request, response, phases);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, RequestPhases phases) {
+        Tags tags = Tags.of(MetricsTags.endpoint(request), Outcome.forStatus(response.getStatus()).asTag());
+        phases.authenticated();
+        for (Phase phase : Phase.values()) {
+            if (phases.hasPhase(phase)) {
+                Timer.builder(PHASE_TIMER)
+                        .description("Time sampled requests spent in each phase of their handling")
+                        .tags(tags)
+                        .tag("phase", phase.getMetricName())
+                        .register(meterRegistry)
+                        .record(phases.getNanos(phase), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static final class HeaderWriter extends OnCommittedResponseWrapper {
+
+        private final RequestPhases phases;
+        private boolean written;
+
+        private HeaderWriter(HttpServletResponse response, RequestPhases phases) {
+            super(response);
+            this.phases = phases;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (written || response.isCommitted()) {
+                return;
+            }
+            written = true;
+            response.setHeader(SERVER_TIMING_HEADER, phases.serverTiming());
+        }
+    }
+}
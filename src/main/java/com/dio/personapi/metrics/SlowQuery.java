@@ -0,0 +1,27 @@
+package com.dio.personapi.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Statement of the {@link SlowQueryLog} top table, with its slowest execution and the totals of its slow ones.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowQuery {
+    private String sql;
+    private String callSite;
+    private String binds;
+    private long rows;
+    private double maxMillis;
+    private double totalMillis;
+    private long executions;
+    private Instant lastSeen;
+    private String plan;
+}
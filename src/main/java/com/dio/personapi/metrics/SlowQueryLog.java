@@ -0,0 +1,328 @@
+package com.dio.personapi.metrics;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the statements executed through the {@link StatementCountingDataSource} that take longer than a threshold,
+ * with the shapes of their bind parameters, such as {@code [String(11), Long]}, their call site, duration and
+ * rows, and keeps the slowest of the last {@code window} in a top table. Bind values are never logged.
+ * <p>
+ * When given a data source to explain them with, the first slow execution of each {@code SELECT} of the table
+ * is explained in the background, on a connection of its own, and the plan is logged and kept in the table.
+ */
+@Log4j2
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final String APPLICATION_PACKAGE = "com.dio.personapi.";
+    private static final String[] INSTRUMENTATION_PACKAGES = {APPLICATION_PACKAGE + "metrics.", APPLICATION_PACKAGE + "jfr."};
+    private static final int EXPLAIN_QUEUE_SIZE = 16;
+
+    private final long thresholdNanos;
+    private final int topSize;
+    private final Duration window;
+    private final DataSource explainDataSource;
+    private final Executor explainExecutor;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * @param explainDataSource data source the slow {@code SELECT}s are explained with, or null not to explain them
+     */
+    public SlowQueryLog(Duration threshold, int topSize, Duration window, DataSource explainDataSource) {
+        this(threshold, topSize, window, explainDataSource, explainDataSource == null ? null : explainExecutor());
+    }
+
+    SlowQueryLog(Duration threshold, int topSize, Duration window, DataSource explainDataSource, Executor explainExecutor) {
+        this.thresholdNanos = threshold.toNanos();
+        this.topSize = topSize;
+        this.window = window;
+        this.explainDataSource = explainDataSource;
+        this.explainExecutor = explainExecutor;
+    }
+
+    private static ExecutorService explainExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("slow-query-explain-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(EXPLAIN_QUEUE_SIZE), threadFactory);
+    }
+
+    /**
+     * The execution of {@code sql} if it took longer than the threshold, to be {@link Execution#finished finished}
+     * once its rows are known, or null.
+     */
+    public Execution executed(String sql, Object[] binds, long nanos) {
+        return nanos >= thresholdNanos ? new Execution(sql, binds, nanos) : null;
+    }
+
+    /**
+     * The slowest statements of the window, slowest first.
+     */
+    public synchronized List<SlowQuery> top() {
+        expire(Instant.now());
+        List<SlowQuery> top = new ArrayList<>(entries.size());
+        entries.values().stream()
+                .sorted(Comparator.comparingLong((Entry entry) -> entry.maxNanos).reversed())
+                .forEach(entry -> top.add(entry.toSlowQuery()));
+        return top;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public void close() {
+        if (explainExecutor instanceof ExecutorService) {
+            ((ExecutorService) explainExecutor).shutdownNow();
+        }
+    }
+
+    private void record(Execution execution, long rows) {
+        log.warn("Slow query of {} ms returning {} rows, from {} with binds {}: {}",
+                String.format(Locale.ROOT, "%.3f", millis(execution.nanos)), rows,
+                execution.callSite, execution.bindShapes, execution.sql);
+        Entry explained;
+        synchronized (this) {
+            Instant now = Instant.now();
+            expire(now);
+            Entry entry = entries.get(execution.sql);
+            if (entry == null) {
+                if (entries.size() >= topSize && !evictFasterThan(execution.nanos)) {
+                    return;
+                }
+                entry = new Entry(execution.sql);
+                entries.put(execution.sql, entry);
+            }
+            entry.add(execution, rows, now);
+            explained = explainDataSource != null && entry.plan == null && !entry.explaining && isExplainable(execution)
+                    ? entry : null;
+            if (explained != null) {
+                entry.explaining = true;
+            }
+        }
+        if (explained != null) {
+            try {
+                explainExecutor.execute(() -> explain(explained, execution));
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    explained.explaining = false;
+                }
+            }
+        }
+    }
+
+    private void expire(Instant now) {
+        Instant oldest = now.minus(window);
+        entries.values().removeIf(entry -> entry.lastSeen.isBefore(oldest));
+    }
+
+    private boolean evictFasterThan(long nanos) {
+        Entry fastest = entries.values().stream().min(Comparator.comparingLong(entry -> entry.maxNanos)).orElse(null);
+        if (fastest == null || fastest.maxNanos >= nanos) {
+            return false;
+        }
+        entries.remove(fastest.sql);
+        return true;
+    }
+
+    private static boolean isExplainable(Execution execution) {
+        if (!execution.sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+            return false;
+        }
+        for (Object bind : execution.binds) {
+            if (bind != null && !(bind instanceof CharSequence || bind instanceof Number || bind instanceof Boolean
+                    || bind instanceof Date || bind instanceof Temporal || bind instanceof UUID)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void explain(Entry entry, Execution execution) {
+        String plan;
+        try (Connection connection = explainDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + execution.sql)) {
+            for (int i = 0; i < execution.binds.length; i++) {
+                statement.setObject(i + 1, execution.binds[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                plan = format(resultSet);
+            }
+            log.info("Plan of the slow query {}:\n{}", execution.sql, plan);
+        } catch (SQLException e) {
+            log.warn("Could not explain the slow query {}: {}", execution.sql, e.getMessage());
+            plan = "EXPLAIN failed: " + e.getMessage();
+        }
+        synchronized (this) {
+            entry.plan = plan;
+            entry.explaining = false;
+        }
+    }
+
+    /**
+     * One line per row of the plan, as its non null {@code column=value} pairs.
+     */
+    private static String format(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        StringJoiner plan = new StringJoiner("\n");
+        while (resultSet.next()) {
+            StringJoiner row = new StringJoiner(", ");
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                Object value = resultSet.getObject(column);
+                if (value != null) {
+                    row.add(metaData.getColumnLabel(column).toLowerCase(Locale.ROOT) + "=" + value);
+                }
+            }
+            plan.add(row.toString());
+        }
+        return plan.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    static String shapes(Object[] binds) {
+        StringJoiner shapes = new StringJoiner(", ", "[", "]");
+        for (Object bind : binds) {
+            if (bind == null) {
+                shapes.add("null");
+            } else if (bind instanceof CharSequence) {
+                shapes.add("String(" + ((CharSequence) bind).length() + ")");
+            } else if (bind instanceof byte[]) {
+                shapes.add("byte[" + ((byte[]) bind).length + "]");
+            } else {
+                shapes.add(bind.getClass().getSimpleName());
+            }
+        }
+        return shapes.toString();
+    }
+
+    /**
+     * The repository method running the statement, if any, and the first application frame outside of the
+     * instrumentation, such as {@code PersonRepository.findAllDTO from PersonService.listAllWithoutPhones:129}.
+     */
+    private static String callSite() {
+        String repositoryMethod = RepositoryCallSite.current();
+        String frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(SlowQueryLog::isApplicationFrame)
+                .findFirst()
+                .map(SlowQueryLog::format)
+                .orElse(null));
+        if (repositoryMethod == null) {
+            return frame == null ? "unknown" : frame;
+        }
+        return frame == null ? repositoryMethod : repositoryMethod + " from " + frame;
+    }
+
+    private static boolean isApplicationFrame(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        if (!className.startsWith(APPLICATION_PACKAGE) || className.contains("$$")) {
+            return false;
+        }
+        for (String instrumentationPackage : INSTRUMENTATION_PACKAGES) {
+            if (className.startsWith(instrumentationPackage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String format(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+    }
+
+    /**
+     * Slow execution of a statement, with its call site taken on the thread that ran it.
+     */
+    public final class Execution {
+
+        private final String sql;
+        private final Object[] binds;
+        private final String bindShapes;
+        private final long nanos;
+        private final String callSite;
+
+        private Execution(String sql, Object[] binds, long nanos) {
+            this.sql = sql;
+            this.binds = binds == null ? new Object[0] : binds.clone();
+            this.bindShapes = shapes(this.binds);
+            this.nanos = nanos;
+            this.callSite = callSite();
+        }
+
+        public void finished(long rows) {
+            record(this, rows);
+        }
+    }
+
+    private static final class Entry {
+
+        private final String sql;
+        private String callSite;
+        private String bindShapes;
+        private long rows;
+        private long maxNanos;
+        private long totalNanos;
+        private long executions;
+        private Instant lastSeen;
+        private String plan;
+        private boolean explaining;
+
+        private Entry(String sql) {
+            this.sql = sql;
+        }
+
+        private void add(Execution execution, long rows, Instant now) {
+            if (execution.nanos >= maxNanos) {
+                maxNanos = execution.nanos;
+                callSite = execution.callSite;
+                bindShapes = execution.bindShapes;
+                this.rows = rows;
+            }
+            totalNanos += execution.nanos;
+            executions++;
+            lastSeen = now;
+        }
+
+        private SlowQuery toSlowQuery() {
+            return SlowQuery.builder()
+                    .sql(sql)
+                    .callSite(callSite)
+                    .binds(bindShapes)
+                    .rows(rows)
+                    .maxMillis(millis(maxNanos))
+                    .totalMillis(millis(totalNanos))
+                    .executions(executions)
+                    .lastSeen(lastSeen)
+                    .plan(plan)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.jfr.QueryEvent;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Counts the statements executed through its connections, and the rows read from their result sets, into the
+ * {@link RequestStatements} of the current request, and records them as {@link QueryEvent JFR events} while
+ * a recording enables them. Given a {@link SlowQueryLog}, it also times every statement, keeps the values
+ * bound to prepared statements and hands the slow executions to it. Batches count as a single statement, as
+ * they take a single round trip.
+ * <p>
+ * Connections and statements are reflective proxies, so every call on them, binds included, pays for a
+ * reflective invocation. Result sets, read once per column of every row, are only wrapped when their rows are
+ * counted or recorded, and then in a plain {@link CountingResultSet}.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        this(targetDataSource, null);
+    }
+
+    public StatementCountingDataSource(DataSource targetDataSource, @Nullable SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(), slowQueryLog));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password), slowQueryLog));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Calls the target, keeping proxies equal only to themselves, as Hibernate tracks statements in hash maps.
+     */
+    private abstract static class Handler implements InvocationHandler {
+
+        private final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invoke(method, args);
+            }
+        }
+
+        abstract Object invoke(Method method, Object[] args) throws Throwable;
+
+        Object proceed(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private static final class ConnectionHandler extends Handler {
+
+        private final SlowQueryLog slowQueryLog;
+
+        private ConnectionHandler(Connection connection, SlowQueryLog slowQueryLog) {
+            super(connection);
+            this.slowQueryLog = slowQueryLog;
+        }
+
+        @Override
+        Object invoke(Method method, Object[] args) throws Throwable {
+            Object result = proceed(method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0], slowQueryLog));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0], slowQueryLog));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null, slowQueryLog));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static final class StatementHandler extends Handler {
+
+        private static final Object[] NO_BINDS = {};
+
+        private final String sql;
+        private final SlowQueryLog slowQueryLog;
+        private Object[] binds = NO_BINDS;
+
+        private StatementHandler(Statement statement, String sql, SlowQueryLog slowQueryLog) {
+            super(statement);
+            this.sql = sql;
+            this.slowQueryLog = slowQueryLog;
+        }
+
+        @Override
+        Object invoke(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (slowQueryLog != null) {
+                keepBind(name, args);
+            }
+            RequestStatements statements = RequestStatements.current();
+            if (!name.startsWith("execute")) {
+                Object result = proceed(method, args);
+                return "getResultSet".equals(name) && result != null && statements != null
+                        ? new CountingResultSet((ResultSet) result, statements, null, null)
+                        : result;
+            }
+            QueryEvent event = new QueryEvent();
+            if (statements == null && slowQueryLog == null && !event.isEnabled()) {
+                return proceed(method, args);
+            }
+            event.begin();
+            long start = System.nanoTime();
+            Object result = proceed(method, args);
+            long nanos = System.nanoTime() - start;
+            String executedSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            if (statements != null) {
+                statements.executed(executedSql, nanos);
+            }
+            SlowQueryLog.Execution slow = slowQueryLog == null ? null : slowQueryLog.executed(executedSql, binds, nanos);
+            event.sql = executedSql;
+            event.batch = name.endsWith("Batch");
+            if (result instanceof ResultSet) {
+                return statements == null && slow == null && !event.isEnabled()
+                        ? result
+                        : new CountingResultSet((ResultSet) result, statements, event, slow);
+            }
+            long rows = updatedRows(result);
+            event.rows = rows;
+            event.commit();
+            if (slow != null) {
+                slow.finished(rows);
+            }
+            return result;
+        }
+
+        /**
+         * Keeps the values of {@code set*(int parameterIndex, value...)} calls, those of the last row of batches.
+         */
+        private void keepBind(String name, Object[] args) {
+            if ("clearParameters".equals(name)) {
+                binds = NO_BINDS;
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0] - 1;
+                if (index >= binds.length) {
+                    binds = Arrays.copyOf(binds, index + 1);
+                }
+                binds[index] = "setNull".equals(name) ? null : args[1];
+            }
+        }
+
+        private static long updatedRows(Object result) {
+            if (result instanceof Number) {
+                return ((Number) result).longValue();
+            }
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    if (count < 0) {
+                        return -1;
+                    }
+                    rows += count;
+                }
+                return rows;
+            }
+            if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    if (count < 0) {
+                        return -1;
+                    }
+                    rows += count;
+                }
+                return rows;
+            }
+            return -1;
+        }
+    }
+}
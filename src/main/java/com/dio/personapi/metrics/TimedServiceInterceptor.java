@@ -0,0 +1,70 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.jfr.ServiceEvent;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Times the methods of beans annotated with Micrometer's {@link Timed}, like its {@code TimedAspect} does
+ * without requiring AspectJ. Timers are tagged with the class, the method, the {@link MetricsTags endpoint}
+ * of the current request, the outcome and the exception. Calls are also {@link ServiceEvent JFR events}.
+ */
+public class TimedServiceInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public TimedServiceInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        Method method = invocation.getMethod();
+        Class<?> targetClass = invocation.getThis() == null ? method.getDeclaringClass() : AopUtils.getTargetClass(invocation.getThis());
+        Timed timed = findTimed(method, targetClass);
+        if (registry == null || timed == null) {
+            return invocation.proceed();
+        }
+
+        ServiceEvent event = new ServiceEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(registry);
+        Throwable exception = null;
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            exception = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.service = targetClass.getSimpleName();
+                event.method = method.getName();
+                event.exception = exception == null ? null : exception.getClass().getSimpleName();
+                event.commit();
+            }
+            sample.stop(Timer.builder(timed.value())
+                    .description(timed.description().isEmpty() ? null : timed.description())
+                    .tags(timed.extraTags())
+                    .tags(Tags.of("class", targetClass.getSimpleName(), "method", method.getName()))
+                    .tags(Tags.of(MetricsTags.endpoint(), MetricsTags.outcome(exception), MetricsTags.exception(exception)))
+                    .publishPercentileHistogram(timed.histogram() ? true : null)
+                    .publishPercentiles(timed.percentiles().length == 0 ? null : timed.percentiles())
+                    .register(registry));
+        }
+    }
+
+    private static Timed findTimed(Method method, Class<?> targetClass) {
+        Timed timed = AnnotatedElementUtils.findMergedAnnotation(AopUtils.getMostSpecificMethod(method, targetClass), Timed.class);
+        return timed != null ? timed : AnnotatedElementUtils.findMergedAnnotation(targetClass, Timed.class);
+    }
+}
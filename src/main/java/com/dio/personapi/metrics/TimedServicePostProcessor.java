@@ -0,0 +1,25 @@
+package com.dio.personapi.metrics;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+/**
+ * Proxies the {@link Service} beans annotated with {@link Timed} with a {@link TimedServiceInterceptor}.
+ * The timer goes before the transaction and cache advice of the bean, so it includes them.
+ */
+public class TimedServicePostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    public TimedServicePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationClassFilter(Service.class, true))
+                .intersection(new AnnotationClassFilter(Timed.class, true));
+        this.advisor = new DefaultPointcutAdvisor(pointcut, new TimedServiceInterceptor(meterRegistry));
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+}
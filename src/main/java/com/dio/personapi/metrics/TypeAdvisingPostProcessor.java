@@ -0,0 +1,25 @@
+package com.dio.personapi.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ClassFilters;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+
+/**
+ * Proxies the beans of the given types, and of their subtypes, with an interceptor. Calls a bean makes to itself
+ * are not intercepted.
+ */
+public class TypeAdvisingPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    public TypeAdvisingPostProcessor(MethodInterceptor interceptor, Class<?>... beanTypes) {
+        ClassFilter classFilter = null;
+        for (Class<?> beanType : beanTypes) {
+            classFilter = classFilter == null ? new RootClassFilter(beanType) : ClassFilters.union(classFilter, new RootClassFilter(beanType));
+        }
+        this.advisor = new DefaultPointcutAdvisor(new ComposablePointcut(classFilter), interceptor);
+        setProxyTargetClass(true);
+    }
+}
@@ -0,0 +1,338 @@
+package com.dio.personapi.migration;
+
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.validation.Cpf;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Idempotent data fixes that {@code ddl-auto: update} cannot do on its own, and do nothing on a fresh database.
+ * They run once every singleton is created, so after Hibernate updated the schema, and before the web server
+ * starts: no request can see a half-migrated schema, and a failed migration stops the startup.
+ * <p>
+ * Data changes run in transactions, so a crash rolls them back and the next startup redoes them. Schema changes
+ * commit on their own, in MySQL as in H2: they come after the data they depend on, and each one is checked for
+ * on every startup, so that a migration interrupted between two of them is finished by the next startup.
+ */
+@Component
+@Log4j2
+public class DataMigrations implements SmartInitializingSingleton {
+
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public DataMigrations(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        alignSequenceTable("person_seq", "person");
+        alignSequenceTable("phone_seq", "phone");
+        initializeVersions();
+        initializeNameKeys();
+        migrateCpfNumbers();
+        migratePhoneOwners();
+        canonicalizePhoneNumbers();
+        dropUnnamedPhoneNumberKeys();
+    }
+
+    /**
+     * Phones used to be linked to people through the {@code person_phones} join table. Their owner is
+     * copied to the {@code person_id} column and the join table is dropped. Phones without an owner could
+     * not be reached through the API and are deleted. The foreign key is added here when ddl-auto could
+     * not add it to the column before it was filled.
+     */
+    private void migratePhoneOwners() {
+        if (tableExists("person_phones")) {
+            transactionTemplate.executeWithoutResult(status -> {
+                int updated = jdbcTemplate.update("update phone set person_id ="
+                        + " (select pp.person_id from person_phones pp where pp.phones_id = phone.id)"
+                        + " where exists (select 1 from person_phones pp where pp.phones_id = phone.id)");
+                int deleted = jdbcTemplate.update("delete from phone where id not in (select pp.phones_id from person_phones pp)");
+                log.info("Moved the owner of {} phones to phone.person_id and deleted {} phones without owner", updated, deleted);
+            });
+            jdbcTemplate.execute("drop table person_phones");
+        }
+        if (!foreignKeyExists("phone", "fk_phone_person")) {
+            jdbcTemplate.execute("alter table phone add constraint fk_phone_person foreign key (person_id) references person (id)");
+        }
+    }
+
+    /**
+     * CPFs used to be stored as text in the {@code cpf} column. Their numeric values are copied to
+     * {@code cpf_number} in batches and the old column, with its unique index, is dropped. Values that
+     * are not valid CPFs cannot be kept in the new column: they are logged and stored as the negated id.
+     */
+    private void migrateCpfNumbers() {
+        if (columnExists("person", "cpf")) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> numbers = new ArrayList<>();
+                jdbcTemplate.query("select id, cpf from person where cpf_number is null or cpf_number = 0",
+                        (RowCallbackHandler) row -> {
+                            long id = row.getLong("id");
+                            long number = Cpf.parse(row.getString("cpf"));
+                            if (number == Cpf.INVALID) {
+                                log.warn("Person {} has the invalid CPF '{}', it must be replaced", id, row.getString("cpf"));
+                                number = -id;
+                            }
+                            numbers.add(new Object[]{number, id});
+                            if (numbers.size() == MIGRATION_BATCH_SIZE) {
+                                updateCpfNumbers(numbers);
+                            }
+                        });
+                updateCpfNumbers(numbers);
+            });
+            jdbcTemplate.execute("alter table person drop column cpf");
+            log.info("Moved the CPFs of people to the cpf_number column");
+        }
+        if (!indexExists("person", Person.CPF_KEY)) {
+            jdbcTemplate.execute("alter table person add constraint " + Person.CPF_KEY + " unique (cpf_number)");
+        }
+    }
+
+    /**
+     * Phone numbers used to be stored as they were sent. They are rewritten in batches to their
+     * {@link Phone#canonicalNumber(String) canonical form}, in which they are looked up, loaded in the duplicate
+     * guard and kept unique. A number that another phone of the same person already has once normalized is a
+     * duplicate and is deleted. One that another person has cannot be kept unique: it is logged and left as it is.
+     * <p>
+     * The filter matches the canonical shapes, so only legacy numbers and the few that have no canonical form
+     * are read again on later startups. Each legacy number costs one lookup of its canonical form.
+     */
+    private void canonicalizePhoneNumbers() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> numbers = new ArrayList<>();
+            List<Object[]> duplicates = new ArrayList<>();
+            Map<String, Long> pendingOwners = new HashMap<>();
+            jdbcTemplate.query("select id, person_id, number from phone"
+                            + " where number not like '(__)____-____' and number not like '(__)_____-____' order by id",
+                    (RowCallbackHandler) row -> {
+                        String number = row.getString("number");
+                        String canonical = Phone.canonicalNumber(number);
+                        if (canonical.equals(number)) {
+                            return;
+                        }
+                        long id = row.getLong("id");
+                        long personId = row.getLong("person_id");
+                        Long owner = pendingOwners.containsKey(canonical) ? pendingOwners.get(canonical) : ownerOfNumber(canonical);
+                        if (owner == null) {
+                            numbers.add(new Object[]{canonical, id});
+                            pendingOwners.put(canonical, personId);
+                        } else if (owner == personId) {
+                            duplicates.add(new Object[]{id});
+                        } else {
+                            log.warn("Phone {} of person {} has the number '{}' of person {}, it must be replaced",
+                                    id, personId, number, owner);
+                        }
+                        if (numbers.size() + duplicates.size() >= MIGRATION_BATCH_SIZE) {
+                            updatePhoneNumbers(numbers, duplicates, pendingOwners);
+                        }
+                    });
+            updatePhoneNumbers(numbers, duplicates, pendingOwners);
+        });
+    }
+
+    private Long ownerOfNumber(String number) {
+        List<Long> owners = jdbcTemplate.queryForList("select person_id from phone where number = ?", Long.class, number);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    private void updatePhoneNumbers(List<Object[]> numbers, List<Object[]> duplicates, Map<String, Long> pendingOwners) {
+        if (!numbers.isEmpty()) {
+            jdbcTemplate.batchUpdate("update phone set number = ? where id = ?", numbers);
+            log.info("Normalized the numbers of {} phones", numbers.size());
+        }
+        if (!duplicates.isEmpty()) {
+            jdbcTemplate.batchUpdate("delete from phone where id = ?", duplicates);
+            log.info("Deleted {} phones that repeated a number of their person", duplicates.size());
+        }
+        numbers.clear();
+        duplicates.clear();
+        pendingOwners.clear();
+    }
+
+    /**
+     * The unique key of phone numbers used to be named by Hibernate, like {@code UK_6xtaqs3u0qhcr9lpoyvbk9hvl}.
+     * ddl-auto adds it again as {@link Phone#NUMBER_KEY}, which the exception handler recognizes, and the old
+     * key is dropped. Only MySQL databases created before have one.
+     */
+    private void dropUnnamedPhoneNumberKeys() {
+        for (String key : uniqueIndexesOn("phone", "number")) {
+            if (!key.toLowerCase(Locale.ROOT).startsWith(Phone.NUMBER_KEY)) {
+                jdbcTemplate.execute("alter table phone drop index " + key);
+                log.info("Dropped the unique key {} of phone numbers, replaced by {}", key, Phone.NUMBER_KEY);
+            }
+        }
+    }
+
+    private void updateCpfNumbers(List<Object[]> numbers) {
+        if (numbers.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("update person set cpf_number = ? where id = ?", numbers);
+        log.info("Migrated the CPFs of {} people", numbers.size());
+        numbers.clear();
+    }
+
+    /**
+     * Name keys are computed in Java (accents are removed), so existing rows are filled in batches.
+     */
+    private void initializeNameKeys() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> keys = new ArrayList<>();
+            jdbcTemplate.query("select id, first_name, last_name from person where first_name_key is null or last_name_key is null",
+                    (RowCallbackHandler) row -> {
+                        keys.add(new Object[]{Person.nameKey(row.getString("first_name")),
+                                Person.nameKey(row.getString("last_name")), row.getLong("id")});
+                        if (keys.size() == MIGRATION_BATCH_SIZE) {
+                            updateNameKeys(keys);
+                        }
+                    });
+            updateNameKeys(keys);
+        });
+    }
+
+    private void updateNameKeys(List<Object[]> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("update person set first_name_key = ?, last_name_key = ? where id = ?", keys);
+        log.info("Initialized the name keys of {} people", keys.size());
+        keys.clear();
+    }
+
+    /**
+     * The version column is added empty to existing rows, and Hibernate expects it to be set.
+     */
+    private void initializeVersions() {
+        int updated = jdbcTemplate.update("update person set version = 0 where version is null");
+        if (updated > 0) {
+            log.info("Initialized the version of {} people", updated);
+        }
+    }
+
+    /**
+     * Ids used to come from IDENTITY columns. On databases without sequences Hibernate emulates
+     * them with a table starting at 1, so move it past the ids already in use.
+     */
+    private void alignSequenceTable(String sequenceTable, String table) {
+        if (!tableExists(sequenceTable)) {
+            return;
+        }
+        int updated = jdbcTemplate.update(String.format(
+                "update %1$s set next_val = (select coalesce(max(id), 0) + %3$d from %2$s)"
+                        + " where next_val < (select coalesce(max(id), 0) + %3$d from %2$s)",
+                sequenceTable, table, Person.ID_ALLOCATION_SIZE));
+        if (updated > 0) {
+            log.info("Moved {} past the ids already used in {}", sequenceTable, table);
+        }
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private boolean columnExists(String table, String column) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String[] names : new String[][]{{table, column}, {table.toUpperCase(), column.toUpperCase()}}) {
+                try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, names[0], names[1])) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Whether {@code table} has a unique index named after {@code index}, in lower case: MySQL names the index
+     * of a unique constraint like the constraint, H2 like {@code UK_PERSON_CPF_NUMBER_INDEX_8}.
+     */
+    private boolean indexExists(String table, String index) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, name, true, false)) {
+                    while (indexes.next()) {
+                        String indexName = indexes.getString("INDEX_NAME");
+                        if (indexName != null && indexName.toLowerCase(Locale.ROOT).startsWith(index)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private Set<String> uniqueIndexesOn(String table, String column) {
+        Set<String> indexes = new HashSet<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet indexInfo = metaData.getIndexInfo(connection.getCatalog(), null, name, true, false)) {
+                    while (indexInfo.next()) {
+                        if (column.equalsIgnoreCase(indexInfo.getString("COLUMN_NAME")) && indexInfo.getString("INDEX_NAME") != null) {
+                            indexes.add(indexInfo.getString("INDEX_NAME"));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+        return indexes;
+    }
+
+    private boolean foreignKeyExists(String table, String foreignKey) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet foreignKeys = metaData.getImportedKeys(connection.getCatalog(), null, name)) {
+                    while (foreignKeys.next()) {
+                        if (foreignKey.equalsIgnoreCase(foreignKeys.getString("FK_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,7 @@
+package com.dio.personapi.repository;
+
+import com.dio.personapi.entities.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+}
@@ -0,0 +1,103 @@
+package com.dio.personapi.repository;
+
+import com.dio.personapi.config.ReactiveConfig;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PersonPhoneDTO;
+import com.dio.personapi.entities.CpfConverter;
+import com.dio.personapi.enums.PhoneType;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking reads of people over R2DBC, mapped to the same {@link PersonDTO} as the JPA projections.
+ * Results are streamed as they are read; the phones of every {@value #PHONES_BATCH_SIZE} people are read
+ * with one query, so a slow subscriber only holds back the next batches.
+ */
+@Repository
+@ConditionalOnProperty(name = ReactiveConfig.ENABLED_PROPERTY, havingValue = "true")
+public class PersonReactiveRepository {
+
+    private static final int PHONES_BATCH_SIZE = 100;
+    private static final String PERSON_SELECT = "select id, first_name, last_name, cpf_number, birth_date from person";
+
+    private final DatabaseClient databaseClient;
+    private final CpfConverter cpfConverter = new CpfConverter();
+
+    public PersonReactiveRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<PersonDTO> findById(long id) {
+        return withPhones(databaseClient.sql(PERSON_SELECT + " where id = :id")
+                .bind("id", id)
+                .map(this::toPersonDTO)
+                .all())
+                .next();
+    }
+
+    /**
+     * Keyset pagination, see {@code PersonService#listAfter}.
+     */
+    public Flux<PersonDTO> findByIdGreaterThan(long afterId, int limit) {
+        return withPhones(databaseClient.sql(PERSON_SELECT + " where id > :afterId order by id limit :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(this::toPersonDTO)
+                .all());
+    }
+
+    /**
+     * Same as {@link PersonRepository#findDTOByNameKeyStartingWith}, ordered by id.
+     */
+    public Flux<PersonDTO> findByNameKeyStartingWith(String pattern, int limit) {
+        return withPhones(databaseClient.sql(PERSON_SELECT
+                        + " where first_name_key like :pattern escape '!' or last_name_key like :pattern escape '!'"
+                        + " order by id limit :limit")
+                .bind("pattern", pattern)
+                .bind("limit", limit)
+                .map(this::toPersonDTO)
+                .all());
+    }
+
+    private Flux<PersonDTO> withPhones(Flux<PersonDTO> people) {
+        return people.buffer(PHONES_BATCH_SIZE).concatMap(this::withPhones);
+    }
+
+    private Flux<PersonDTO> withPhones(List<PersonDTO> people) {
+        Map<Long, PersonDTO> peopleById = people.stream()
+                .peek(person -> person.setPhones(new ArrayList<>()))
+                .collect(Collectors.toMap(PersonDTO::getId, Function.identity()));
+        return databaseClient.sql("select person_id, id, type, number from phone where person_id in (:ids) order by id")
+                .bind("ids", peopleById.keySet())
+                .map(PersonReactiveRepository::toPersonPhoneDTO)
+                .all()
+                .doOnNext(phone -> peopleById.get(phone.getPersonId()).getPhones().add(phone.toPhoneDTO()))
+                .thenMany(Flux.fromIterable(people));
+    }
+
+    private PersonDTO toPersonDTO(Row row) {
+        return new PersonDTO(row.get("id", Long.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                cpfConverter.convertToEntityAttribute(row.get("cpf_number", Long.class)),
+                row.get("birth_date", LocalDate.class));
+    }
+
+    private static PersonPhoneDTO toPersonPhoneDTO(Row row) {
+        return new PersonPhoneDTO(row.get("person_id", Long.class),
+                row.get("id", Long.class),
+                PhoneType.valueOf(row.get("type", String.class)),
+                row.get("number", String.class));
+    }
+}
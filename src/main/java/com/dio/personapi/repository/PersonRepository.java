@@ -1,10 +1,104 @@
 package com.dio.personapi.repository;
 
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PersonPhoneDTO;
 import com.dio.personapi.entities.Person;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface PersonRepository extends JpaRepository<Person, Long> {
-    List<Person> findByFirstName(String name);
+    String PERSON_DTO = "select new com.dio.personapi.dto.PersonDTO(p.id, p.firstName, p.lastName, p.cpf, p.birthDate) from Person p";
+
+    @Override
+    @EntityGraph(attributePaths = "phones")
+    Optional<Person> findById(Long id);
+
+    @Query("select new com.dio.personapi.dto.PersonDTO(p.id, p.firstName, p.lastName, p.cpf, p.birthDate, p.version)"
+            + " from Person p where p.id = :id")
+    Optional<PersonDTO> findDTOById(@Param("id") Long id);
+
+    /**
+     * Looks the person up on the unique index of the numeric CPF column; the CPF is converted like the attribute.
+     */
+    @Query(PERSON_DTO + " where p.cpf = :cpf")
+    Optional<PersonDTO> findDTOByCpf(@Param("cpf") String cpf);
+
+    /**
+     * Looks the owner of a {@link com.dio.personapi.entities.Phone#canonicalNumber(String) canonical} phone
+     * number up on the unique index of the number, then by the phone's foreign key.
+     */
+    @Query(PERSON_DTO + " join p.phones ph where ph.number = :number")
+    Optional<PersonDTO> findDTOByPhoneNumber(@Param("number") String number);
+
+    /**
+     * People with their row versions, which the ETag of the page is computed from.
+     */
+    @Query(value = "select new com.dio.personapi.dto.PersonDTO(p.id, p.firstName, p.lastName, p.cpf, p.birthDate, p.version)"
+            + " from Person p", countQuery = "select count(p) from Person p")
+    Page<PersonDTO> findAllDTO(Pageable pageable);
+
+    @Query(PERSON_DTO + " where p.id > :id")
+    List<PersonDTO> findDTOByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * People whose first or last name key matches {@code pattern}: a {@link Person#nameKey(String) name key}
+     * with LIKE wildcards escaped by '!', followed by '%'.
+     */
+    @Query(value = PERSON_DTO + " where p.firstNameKey like :pattern escape '!' or p.lastNameKey like :pattern escape '!'",
+            countQuery = "select count(p) from Person p"
+                    + " where p.firstNameKey like :pattern escape '!' or p.lastNameKey like :pattern escape '!'")
+    Page<PersonDTO> findDTOByNameKeyStartingWith(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("select new com.dio.personapi.dto.PersonPhoneDTO(p.id, ph.id, ph.type, ph.number)"
+            + " from Person p join p.phones ph where p.id in :ids order by ph.id")
+    List<PersonPhoneDTO> findPhoneDTOsByPersonIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByCpf(String cpf);
+
+    @Query("select count(ph) > 0 from Phone ph where ph.number = :number")
+    boolean existsPhoneByNumber(@Param("number") String number);
+
+    /**
+     * Every stored CPF. Must be consumed, and closed, inside a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select p.cpf from Person p")
+    Stream<String> streamAllCpfs();
+
+    /**
+     * Every stored phone number. Must be consumed, and closed, inside a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select ph.number from Phone ph")
+    Stream<String> streamAllPhoneNumbers();
+
+    /**
+     * Forward-only stream over every person, without phones. Must be consumed, and closed, inside a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query(PERSON_DTO)
+    Stream<PersonDTO> streamAllDTO();
+
+    /**
+     * Forward-only stream over every person with its phones, ordered by id so rows of the same
+     * person arrive together. Must be consumed, and closed, inside a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select p from Person p left join fetch p.phones order by p.id")
+    Stream<Person> streamAllWithPhones();
 }
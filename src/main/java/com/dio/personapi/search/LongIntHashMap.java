@@ -0,0 +1,143 @@
+package com.dio.personapi.search;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from {@code long} to {@code int}, with linear probing and no boxing.
+ * {@link Long#MIN_VALUE} is reserved to mark free slots and cannot be used as a key. Not thread safe.
+ */
+final class LongIntHashMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    interface LongIntConsumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key, int missingValue) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == FREE) {
+                return missingValue;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        int slot = findOrInsert(key);
+        values[slot] = value;
+    }
+
+    /**
+     * Adds {@code delta} to the value of {@code key}, starting from 0, and returns the new value.
+     */
+    int addTo(long key, int delta) {
+        int slot = findOrInsert(key);
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * Removes {@code key} and returns its value, or {@code missingValue} if it was not present. Entries
+     * further along the probe sequence are shifted back, so lookups never need tombstones.
+     */
+    int remove(long key, int missingValue) {
+        int hole = slot(key);
+        while (keys[hole] != key) {
+            if (keys[hole] == FREE) {
+                return missingValue;
+            }
+            hole = (hole + 1) & mask;
+        }
+        int removed = values[hole];
+        for (int slot = (hole + 1) & mask; keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (((slot - slot(keys[slot])) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = FREE;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    void forEach(LongIntConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int findOrInsert(long key) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be used as a key");
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == FREE) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    return findOrInsert(key);
+                }
+                keys[slot] = key;
+                values[slot] = 0;
+                size++;
+                return slot;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        Arrays.fill(keys, FREE);
+        mask = tableSize - 1;
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSize(int expectedSize) {
+        int minimum = Math.max(8, expectedSize * 2);
+        return Integer.highestOneBit(minimum - 1) << 1;
+    }
+}
@@ -0,0 +1,256 @@
+package com.dio.personapi.search;
+
+import com.dio.personapi.dto.PersonSearchResultDTO;
+import com.dio.personapi.entities.Person;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted trigram index over the first and last names of people, for substring and
+ * typo tolerant searches that a SQL {@code LIKE '%x%'} cannot answer without a full scan.
+ * <p>
+ * Every person gets a document slot; per trigram a posting list holds the slots of the people whose
+ * name contains it. Slots, postings and hash tables are primitive arrays, so the index costs a few
+ * bytes per trigram occurrence and searches allocate little beyond the candidate counts. Reads share
+ * a lock, updates take it exclusively.
+ */
+@Component
+public class PersonNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private static final Comparator<PersonSearchResultDTO> RANKING = Comparator
+            .comparingDouble(PersonSearchResultDTO::getScore).reversed()
+            .thenComparingInt(result -> result.getFirstName().length() + result.getLastName().length())
+            .thenComparing(PersonSearchResultDTO::getId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // documents, indexed by slot
+    private final LongIntHashMap slotsById = new LongIntHashMap(INITIAL_CAPACITY);
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] firstNames = new String[INITIAL_CAPACITY];
+    private String[] lastNames = new String[INITIAL_CAPACITY];
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+    private int slotCount;
+
+    // posting lists of slots, indexed by the position the trigram has in postingsByGram
+    private final LongIntHashMap postingsByGram = new LongIntHashMap(INITIAL_CAPACITY);
+    private int[][] postings = new int[INITIAL_CAPACITY][];
+    private int[] postingSizes = new int[INITIAL_CAPACITY];
+
+    /**
+     * Adds a person, or replaces its names if it is already indexed.
+     */
+    public void put(long id, String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            int existing = slotsById.remove(id, -1);
+            if (existing >= 0) {
+                removeSlot(existing);
+            }
+            int slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : newSlot();
+            ids[slot] = id;
+            firstNames[slot] = firstName;
+            lastNames[slot] = lastName;
+            keys[slot] = " " + key(firstName) + " " + key(lastName) + " ";
+            slotsById.put(id, slot);
+            for (long gram : grams(keys[slot])) {
+                addPosting(gram, slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.remove(id, -1);
+            if (slot >= 0) {
+                removeSlot(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            postingsByGram.clear();
+            Arrays.fill(firstNames, null);
+            Arrays.fill(lastNames, null);
+            Arrays.fill(keys, null);
+            Arrays.fill(postings, null);
+            Arrays.fill(postingSizes, 0);
+            freeSlotCount = 0;
+            slotCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best {@code limit} people sharing at least half of the query trigrams with their names. The query
+     * is read as the start of a word, so "sou" and "souz" both find "Souza". The score is the share of query
+     * trigrams found, plus 1 when the names contain the query at the start of a word, or 0.5 elsewhere.
+     * Ties go to shorter names.
+     */
+    public List<PersonSearchResultDTO> search(String query, int limit) {
+        String key = key(query);
+        long[] queryGrams = grams(" " + key);
+        if (queryGrams.length == 0 || limit < 1) {
+            return List.of();
+        }
+        int minShared = (queryGrams.length + 1) / 2;
+        PriorityQueue<PersonSearchResultDTO> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+
+        lock.readLock().lock();
+        try {
+            LongIntHashMap shared = new LongIntHashMap(64);
+            for (long gram : queryGrams) {
+                int posting = postingsByGram.get(gram, -1);
+                if (posting < 0) {
+                    continue;
+                }
+                int[] slots = postings[posting];
+                for (int i = 0; i < postingSizes[posting]; i++) {
+                    shared.addTo(slots[i], 1);
+                }
+            }
+            shared.forEach((slot, count) -> {
+                if (count < minShared) {
+                    return;
+                }
+                best.offer(result((int) slot, score(keys[(int) slot], key, count, queryGrams.length)));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<PersonSearchResultDTO> results = new ArrayList<>(best);
+        results.sort(RANKING);
+        return results;
+    }
+
+    private static double score(String documentKey, String queryKey, int sharedGrams, int queryGrams) {
+        double score = (double) sharedGrams / queryGrams;
+        int at = documentKey.indexOf(queryKey);
+        if (at > 0) {
+            score += documentKey.charAt(at - 1) == ' ' ? 1.0 : 0.5;
+        }
+        return score;
+    }
+
+    private PersonSearchResultDTO result(int slot, double score) {
+        return PersonSearchResultDTO.builder()
+                .id(ids[slot])
+                .firstName(firstNames[slot])
+                .lastName(lastNames[slot])
+                .score(score)
+                .build();
+    }
+
+    private void removeSlot(int slot) {
+        for (long gram : grams(keys[slot])) {
+            int posting = postingsByGram.get(gram, -1);
+            int[] slots = postings[posting];
+            int size = postingSizes[posting];
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[size - 1];
+                    postingSizes[posting] = size - 1;
+                    break;
+                }
+            }
+        }
+        firstNames[slot] = null;
+        lastNames[slot] = null;
+        keys[slot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private int newSlot() {
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void addPosting(long gram, int slot) {
+        int posting = postingsByGram.get(gram, -1);
+        if (posting < 0) {
+            posting = postingsByGram.size();
+            postingsByGram.put(gram, posting);
+            if (posting == postings.length) {
+                postings = Arrays.copyOf(postings, posting * 2);
+                postingSizes = Arrays.copyOf(postingSizes, posting * 2);
+            }
+            postings[posting] = NO_SLOTS;
+        }
+        int size = postingSizes[posting];
+        if (size == postings[posting].length) {
+            postings[posting] = Arrays.copyOf(postings[posting], Math.max(4, size * 2));
+        }
+        postings[posting][size] = slot;
+        postingSizes[posting] = size + 1;
+    }
+
+    private static String key(String name) {
+        String key = Person.nameKey(name);
+        return key == null ? "" : key.replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Distinct trigrams of {@code text}, each packed as three 16 bit chars in a long.
+     */
+    private static long[] grams(String text) {
+        if (text.length() < GRAM_LENGTH) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
@@ -0,0 +1,84 @@
+package com.dio.personapi.security;
+
+import com.dio.personapi.config.CacheConfig;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Objects;
+
+/**
+ * Remembers credentials that recently passed the (deliberately slow) password encoder check. Only an
+ * HMAC-SHA256 of the username and raw password is kept, under a key generated at startup that never
+ * leaves the process, so neither the cache nor a heap dump of it yields a usable password.
+ * <p>
+ * An entry also records the encoded password it was verified against: once the stored password changes,
+ * the entry stops matching even before it is evicted.
+ */
+@Component
+@Log4j2
+public class CredentialCache {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Cache credentials;
+    private final Cache users;
+    private final SecretKey key;
+
+    public CredentialCache(CacheManager cacheManager) throws GeneralSecurityException {
+        this.credentials = Objects.requireNonNull(cacheManager.getCache(CacheConfig.CREDENTIALS_CACHE));
+        this.users = Objects.requireNonNull(cacheManager.getCache(CacheConfig.USERS_CACHE));
+        this.key = KeyGenerator.getInstance(ALGORITHM).generateKey();
+    }
+
+    public boolean matches(String username, String rawPassword, String encodedPassword) {
+        VerifiedCredential verified = credentials.get(username, VerifiedCredential.class);
+        return verified != null
+                && verified.getEncodedPassword().equals(encodedPassword)
+                && MessageDigest.isEqual(verified.getDigest(), digest(username, rawPassword));
+    }
+
+    public void put(String username, String rawPassword, String encodedPassword) {
+        credentials.put(username, new VerifiedCredential(encodedPassword, digest(username, rawPassword)));
+    }
+
+    /**
+     * Cache of loaded {@code UserDetails}, shared with the authentication provider so that both are
+     * invalidated together.
+     */
+    public Cache getUsers() {
+        return users;
+    }
+
+    public void evict(String username) {
+        log.debug("Evicting cached credentials of '{}'", username);
+        credentials.evict(username);
+        users.evict(username);
+    }
+
+    private byte[] digest(String username, String rawPassword) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute the credential digest", e);
+        }
+    }
+
+    @Value
+    private static class VerifiedCredential {
+        String encodedPassword;
+        byte[] digest;
+    }
+}
@@ -0,0 +1,86 @@
+package com.dio.personapi.security;
+
+import com.dio.personapi.entities.PersonUser;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+/**
+ * Evicts the cached credentials and user details of a {@link PersonUser} once a transaction that updated
+ * or deleted it commits. The old username is evicted as well when it changes. JPQL bulk updates bypass
+ * Hibernate events; they are only invalidated by the cache time to live.
+ */
+@Component
+@RequiredArgsConstructor
+public class PersonUserCacheEvictionListener implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String USERNAME = "username";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CredentialCache credentialCache;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof PersonUser) {
+            credentialCache.evict(((PersonUser) event.getEntity()).getUsername());
+            if (event.getOldState() != null) {
+                int index = Arrays.asList(event.getPersister().getPropertyNames()).indexOf(USERNAME);
+                Object oldUsername = event.getOldState()[index];
+                if (oldUsername != null) {
+                    credentialCache.evict(oldUsername.toString());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        onPostUpdate(event);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof PersonUser) {
+            credentialCache.evict(((PersonUser) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        onPostDelete(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return PersonUser.class.equals(persister.getMappedClass());
+    }
+
+    /**
+     * Still abstract in Hibernate 5, which only calls {@link #requiresPostCommitHandling(EntityPersister)}.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+}
@@ -0,0 +1,40 @@
+package com.dio.personapi.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * Authentication restored from a verified access token. It is {@link Transient}, so it is never stored in
+ * the HTTP session and token requests stay stateless.
+ */
+@Transient
+public class TokenAuthentication extends AbstractAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UserDetails principal;
+
+    public TokenAuthentication(String username, Collection<? extends GrantedAuthority> authorities) {
+        super(authorities);
+        this.principal = User.withUsername(username)
+                .password("")
+                .authorities(authorities)
+                .build();
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return "";
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return principal;
+    }
+}
@@ -0,0 +1,21 @@
+package com.dio.personapi.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Signed content of an access token: the username, its granted authorities and the expiry in epoch seconds.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenClaims {
+    private String sub;
+    private List<String> roles;
+    private long exp;
+}
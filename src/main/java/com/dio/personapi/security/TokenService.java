@@ -0,0 +1,114 @@
+package com.dio.personapi.security;
+
+import com.dio.personapi.dto.TokenResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies compact access tokens of the form {@code base64url(claims).base64url(HMAC-SHA256)}.
+ * Verification needs neither the database nor the password encoder: the signature is compared in constant
+ * time and the roles are read from the claims.
+ * <p>
+ * Without {@code personapi.security.token.secret} a random key is generated at startup, so tokens do not
+ * survive a restart and are not accepted by other instances.
+ */
+@Component
+@Log4j2
+public class TokenService {
+
+    public static final String TOKEN_TYPE = "Bearer";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final SecretKey key;
+    private final Duration timeToLive;
+
+    public TokenService(ObjectMapper objectMapper,
+                        @Value("${personapi.security.token.secret:}") String secret,
+                        @Value("${personapi.security.token.time-to-live:15m}") Duration timeToLive) throws GeneralSecurityException {
+        this.objectMapper = objectMapper;
+        this.timeToLive = timeToLive;
+        if (secret.isEmpty()) {
+            log.warn("No personapi.security.token.secret configured, access tokens are signed with a random key");
+            this.key = KeyGenerator.getInstance(ALGORITHM).generateKey();
+        } else {
+            this.key = new SecretKeySpec(Base64.getDecoder().decode(secret), ALGORITHM);
+        }
+    }
+
+    public TokenResponseDTO issue(Authentication authentication) {
+        TokenClaims claims = TokenClaims.builder()
+                .sub(authentication.getName())
+                .roles(authentication.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toList()))
+                .exp(Instant.now().plus(timeToLive).getEpochSecond())
+                .build();
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return TokenResponseDTO.builder()
+                    .accessToken(payload + "." + ENCODER.encodeToString(sign(payload)))
+                    .tokenType(TOKEN_TYPE)
+                    .expiresIn(timeToLive.getSeconds())
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write the token claims", e);
+        }
+    }
+
+    public TokenAuthentication verify(String token) {
+        int separator = token.indexOf('.');
+        if (separator < 0) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        String payload = token.substring(0, separator);
+        TokenClaims claims;
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(separator + 1)))) {
+                throw new BadCredentialsException("Invalid token signature");
+            }
+            claims = objectMapper.readValue(DECODER.decode(payload), TokenClaims.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadCredentialsException("Malformed token", e);
+        }
+        if (Instant.now().getEpochSecond() >= claims.getExp()) {
+            throw new CredentialsExpiredException("Token expired");
+        }
+        return new TokenAuthentication(claims.getSub(), claims.getRoles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList()));
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign the token", e);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.CacheConfig;
+import com.dio.personapi.config.MetricsConfig;
+import com.dio.personapi.dto.BulkOperationDTO;
+import com.dio.personapi.dto.BulkResultDTO;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.duplicate.DuplicateGuard;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.enums.BulkOperationType;
+import com.dio.personapi.exception.BadRequestException;
+import com.dio.personapi.exception.DuplicateResourceException;
+import com.dio.personapi.mapper.PersonMapper;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.search.PersonNameIndex;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies lists of create/replace/delete operations in chunks, one transaction per chunk.
+ * Inside a chunk the persistence context is flushed once, letting Hibernate send the statements
+ * as JDBC batches, and cleared afterwards so memory does not grow with the request size.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Log4j2
+public class PersonBulkService {
+
+    private final PersonRepository personRepository;
+    private final PersonMapper personMapper;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final PersonNameIndex personNameIndex;
+    private final DuplicateGuard duplicateGuard;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache peopleCache;
+    private final int chunkSize;
+    private final int maxOperations;
+
+    public PersonBulkService(PersonRepository personRepository,
+                             PersonMapper personMapper,
+                             EntityManager entityManager,
+                             Validator validator,
+                             PersonNameIndex personNameIndex,
+                             DuplicateGuard duplicateGuard,
+                             PlatformTransactionManager transactionManager,
+                             CacheManager cacheManager,
+                             @Value("${personapi.bulk.chunk-size:500}") int chunkSize,
+                             @Value("${personapi.bulk.max-operations:10000}") int maxOperations) {
+        this.personRepository = personRepository;
+        this.personMapper = personMapper;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.personNameIndex = personNameIndex;
+        this.duplicateGuard = duplicateGuard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.peopleCache = cacheManager.getCache(CacheConfig.PEOPLE_CACHE);
+        this.chunkSize = chunkSize;
+        this.maxOperations = maxOperations;
+    }
+
+    public List<BulkResultDTO> execute(List<BulkOperationDTO> operations) {
+        return execute(operations, stored -> {
+        });
+    }
+
+    /**
+     * Like {@link #execute(List)}, also calling {@code inTransaction} inside every transaction that stores
+     * operations, with the results of all the operations done up to the last one it stores, in order. Progress
+     * saved by it then commits or rolls back with the operations. A rolled back chunk is retried one operation
+     * at a time, calling it again with the same results.
+     */
+    public List<BulkResultDTO> execute(List<BulkOperationDTO> operations, Consumer<List<BulkResultDTO>> inTransaction) {
+        if (operations.size() > maxOperations) {
+            throw new BadRequestException("A bulk request accepts at most " + maxOperations + " operations");
+        }
+        BulkResultDTO[] results = new BulkResultDTO[operations.size()];
+
+        List<Integer> chunk = new ArrayList<>(chunkSize);
+        for (int index = 0; index < operations.size(); index++) {
+            String invalid = validate(operations.get(index));
+            if (invalid != null) {
+                results[index] = result(index, operations.get(index), HttpStatus.BAD_REQUEST, invalid);
+                continue;
+            }
+            BulkResultDTO duplicate = checkNotDuplicate(index, operations.get(index));
+            if (duplicate != null) {
+                results[index] = duplicate;
+                continue;
+            }
+            chunk.add(index);
+            if (chunk.size() == chunkSize) {
+                executeChunk(operations, chunk, results, inTransaction);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            executeChunk(operations, chunk, results, inTransaction);
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Runs a whole chunk in one transaction. When it fails the chunk is rolled back and its
+     * operations are retried one by one, so only the offending ones are reported as failed.
+     */
+    private void executeChunk(List<BulkOperationDTO> operations, List<Integer> chunk, BulkResultDTO[] results,
+                              Consumer<List<BulkResultDTO>> inTransaction) {
+        try {
+            List<BulkResultDTO> chunkResults = transactionTemplate.execute(status -> {
+                List<BulkResultDTO> applied = apply(operations, chunk);
+                inTransaction.accept(done(results, applied));
+                return applied;
+            });
+            chunkResults.forEach(result -> results[result.getIndex()] = result);
+        } catch (RuntimeException ex) {
+            log.debug("Bulk chunk failed, retrying its operations one by one", ex);
+            for (Integer index : chunk) {
+                results[index] = executeSingle(operations, index, results, inTransaction);
+            }
+        }
+    }
+
+    private BulkResultDTO executeSingle(List<BulkOperationDTO> operations, Integer index, BulkResultDTO[] results,
+                                       Consumer<List<BulkResultDTO>> inTransaction) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<BulkResultDTO> applied = apply(operations, List.of(index));
+                inTransaction.accept(done(results, applied));
+                return applied;
+            }).get(0);
+        } catch (DataIntegrityViolationException ex) {
+            HttpStatus status = DuplicateGuard.isDuplicate(ex) ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR;
+            return result(index, operations.get(index), status, ex.getMostSpecificCause().getMessage());
+        } catch (DateTimeParseException ex) {
+            return result(index, operations.get(index), HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (RuntimeException ex) {
+            return result(index, operations.get(index), HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+        }
+    }
+
+    private List<BulkResultDTO> apply(List<BulkOperationDTO> operations, List<Integer> chunk) {
+        Set<Long> existingIds = chunk.stream()
+                .map(operations::get)
+                .filter(operation -> operation.getOperation() != BulkOperationType.CREATE)
+                .map(BulkOperationDTO::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Person> existing = existingIds.isEmpty() ? Map.of() : personRepository.findAllById(existingIds).stream()
+                .collect(Collectors.toMap(Person::getId, Function.identity()));
+
+        List<BulkResultDTO> chunkResults = new ArrayList<>(chunk.size());
+        List<Person> created = new ArrayList<>();
+        List<Person> indexed = new ArrayList<>();
+        List<Long> unindexed = new ArrayList<>();
+        for (Integer index : chunk) {
+            BulkOperationDTO operation = operations.get(index);
+            if (operation.getOperation() == BulkOperationType.CREATE) {
+                Person person = personMapper.toModel(operation.getPerson());
+                person.setId(null);
+                entityManager.persist(person);
+                created.add(person);
+                indexed.add(person);
+                chunkResults.add(result(index, operation, HttpStatus.CREATED, null));
+                continue;
+            }
+            Person person = existing.get(operation.getId());
+            if (person == null) {
+                chunkResults.add(result(index, operation, HttpStatus.NOT_FOUND, "Person not found with id:" + operation.getId()));
+            } else if (operation.getOperation() == BulkOperationType.REPLACE) {
+                Person replacement = personMapper.toModel(operation.getPerson());
+                replacement.setId(operation.getId());
+                replacement.setVersion(person.getVersion());
+                replacement.reusePhoneIds(person);
+                entityManager.merge(replacement);
+                peopleCache.evict(operation.getId());
+                indexed.add(replacement);
+                chunkResults.add(result(index, operation, HttpStatus.NO_CONTENT, null));
+            } else {
+                entityManager.remove(person);
+                peopleCache.evict(operation.getId());
+                existing.remove(operation.getId());
+                unindexed.add(operation.getId());
+                chunkResults.add(result(index, operation, HttpStatus.NO_CONTENT, null));
+            }
+        }
+        // flushing through the repository translates constraint violations into DataAccessExceptions
+        personRepository.flush();
+        entityManager.clear();
+
+        // ids of created people are only known once they are persisted
+        int createdIndex = 0;
+        for (BulkResultDTO chunkResult : chunkResults) {
+            if (chunkResult.getOperation() == BulkOperationType.CREATE) {
+                chunkResult.setId(created.get(createdIndex++).getId());
+            }
+        }
+        updateAfterCommit(indexed, unindexed);
+        return chunkResults;
+    }
+
+    /**
+     * Results of the operations up to the last one just applied: operations are done in order, so every earlier
+     * one was either stored by a previous transaction or rejected.
+     */
+    private static List<BulkResultDTO> done(BulkResultDTO[] results, List<BulkResultDTO> applied) {
+        BulkResultDTO[] done = Arrays.copyOf(results, applied.get(applied.size() - 1).getIndex() + 1);
+        applied.forEach(result -> done[result.getIndex()] = result);
+        return Arrays.asList(done);
+    }
+
+    /**
+     * The name index and the duplicate filters only learn about the chunk once it is committed; a rolled
+     * back chunk leaves them untouched. Cached people are evicted in {@link #apply} instead: the people cache
+     * is transaction aware and already defers the evictions to the commit.
+     */
+    private void updateAfterCommit(List<Person> indexed, List<Long> unindexed) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indexed.forEach(person -> personNameIndex.put(person.getId(), person.getFirstName(), person.getLastName()));
+                indexed.forEach(duplicateGuard::add);
+                unindexed.forEach(personNameIndex::remove);
+            }
+        });
+    }
+
+    /**
+     * Rejects creates of stored CPFs or phone numbers before they join a chunk, which they would otherwise
+     * roll back and make retry one by one. Duplicates within the request are left to the unique keys.
+     */
+    private BulkResultDTO checkNotDuplicate(int index, BulkOperationDTO operation) {
+        if (operation.getOperation() != BulkOperationType.CREATE) {
+            return null;
+        }
+        try {
+            duplicateGuard.checkNotDuplicate(personMapper.toModel(operation.getPerson()));
+            return null;
+        } catch (DuplicateResourceException ex) {
+            return result(index, operation, HttpStatus.CONFLICT, ex.getMessage());
+        } catch (DateTimeParseException ex) {
+            return result(index, operation, HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    private String validate(BulkOperationDTO operation) {
+        if (operation.getOperation() == null) {
+            return "The operation cannot be null";
+        }
+        if (operation.getOperation() != BulkOperationType.CREATE && operation.getId() == null) {
+            return "The id cannot be null";
+        }
+        if (operation.getOperation() == BulkOperationType.DELETE) {
+            return null;
+        }
+        PersonDTO person = operation.getPerson();
+        if (person == null) {
+            return "The person cannot be null";
+        }
+        Set<ConstraintViolation<PersonDTO>> violations = validator.validate(person);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private BulkResultDTO result(int index, BulkOperationDTO operation, HttpStatus status, String message) {
+        return BulkResultDTO.builder()
+                .index(index)
+                .operation(operation.getOperation())
+                .id(operation.getId())
+                .status(status.value())
+                .message(Objects.requireNonNullElse(message, status.getReasonPhrase()))
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.MetricsConfig;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.enums.FileFormat;
+import com.dio.personapi.mapper.PersonCsvMapper;
+import com.dio.personapi.mapper.PersonMapper;
+import com.dio.personapi.repository.PersonRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Streams the whole people table to an output stream. Rows are read through a forward-only
+ * cursor and detached once written, so memory stays flat whatever the table size.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class PersonExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PersonRepository personRepository;
+    private final PersonMapper personMapper;
+    private final PersonCsvMapper personCsvMapper;
+    private final EntityManager entityManager;
+    private final ObjectWriter objectWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    public PersonExportService(PersonRepository personRepository,
+                               PersonMapper personMapper,
+                               PersonCsvMapper personCsvMapper,
+                               EntityManager entityManager,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.personMapper = personMapper;
+        this.personCsvMapper = personCsvMapper;
+        this.entityManager = entityManager;
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public void export(FileFormat format, OutputStream outputStream) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Person> people = personRepository.streamAllWithPhones()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+                if (format == FileFormat.CSV) {
+                    writeCsv(people, writer);
+                } else {
+                    writeNdjson(people, writer);
+                }
+                writer.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private void writeNdjson(Stream<Person> people, Writer writer) throws IOException {
+        try (JsonGenerator generator = objectWriter.getFactory().createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            people.forEach(person -> {
+                try {
+                    objectWriter.writeValue(generator, personMapper.toExportDTO(person));
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                detach(person);
+            });
+        }
+    }
+
+    private void writeCsv(Stream<Person> people, Writer writer) throws IOException {
+        writer.write(PersonCsvMapper.HEADER);
+        writer.write('\n');
+        people.forEach(person -> {
+            try {
+                writer.write(personCsvMapper.toCsvLine(personMapper.toExportDTO(person)));
+                writer.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            detach(person);
+        });
+    }
+
+    private void detach(Person person) {
+        person.getPhones().forEach(entityManager::detach);
+        entityManager.detach(person);
+    }
+}
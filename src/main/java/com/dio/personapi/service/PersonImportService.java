@@ -0,0 +1,220 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.MetricsConfig;
+import com.dio.personapi.dto.BulkOperationDTO;
+import com.dio.personapi.dto.BulkResultDTO;
+import com.dio.personapi.dto.ImportResultDTO;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.entities.ImportCheckpoint;
+import com.dio.personapi.enums.BulkOperationType;
+import com.dio.personapi.enums.FileFormat;
+import com.dio.personapi.exception.ResourceNotFoundException;
+import com.dio.personapi.mapper.PersonCsvMapper;
+import com.dio.personapi.repository.ImportCheckpointRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports people from NDJSON or CSV files of any size. The file is read one record at a time and
+ * stored in chunks through {@link PersonBulkService}; reading only continues once a chunk is committed,
+ * so a slow database slows the upload down instead of filling memory.
+ * <p>
+ * The line reached is saved in an {@link ImportCheckpoint} in the transaction of every chunk, so it is
+ * committed with the people of the chunk. Sending the same file again with the same import id skips the
+ * lines already stored, and only lines rejected after the last stored one can be read again.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Log4j2
+public class PersonImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final PersonBulkService personBulkService;
+    private final ImportCheckpointRepository importCheckpointRepository;
+    private final PersonCsvMapper personCsvMapper;
+    private final ObjectReader personReader;
+    private final int chunkSize;
+
+    public PersonImportService(PersonBulkService personBulkService,
+                               ImportCheckpointRepository importCheckpointRepository,
+                               PersonCsvMapper personCsvMapper,
+                               ObjectMapper objectMapper,
+                               @Value("${personapi.import.chunk-size:500}") int chunkSize) {
+        this.personBulkService = personBulkService;
+        this.importCheckpointRepository = importCheckpointRepository;
+        this.personCsvMapper = personCsvMapper;
+        this.personReader = objectMapper.readerFor(PersonDTO.class);
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportResultDTO importPeople(String importId, FileFormat format, InputStream inputStream) {
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(importId)
+                .orElseGet(() -> ImportCheckpoint.builder().importId(importId).build());
+        ImportResultDTO result = ImportResultDTO.builder()
+                .importId(importId)
+                .errors(new ArrayList<>())
+                .build();
+        if (checkpoint.isCompleted()) {
+            return withTotals(result, checkpoint);
+        }
+
+        RecordReader reader = new RecordReader(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)), format);
+        List<BulkOperationDTO> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+        String record;
+        while ((record = reader.next()) != null) {
+            long lineNumber = reader.lineNumber();
+            if (lineNumber <= checkpoint.getLineNumber()) {
+                result.setSkipped(result.getSkipped() + 1);
+                continue;
+            }
+            if (format == FileFormat.CSV && lineNumber == 1 && record.startsWith(PersonCsvMapper.HEADER)) {
+                continue;
+            }
+            try {
+                chunk.add(BulkOperationDTO.builder()
+                        .operation(BulkOperationType.CREATE)
+                        .person(parse(format, record))
+                        .build());
+                chunkLines.add(lineNumber);
+            } catch (IOException | RuntimeException ex) {
+                checkpoint.setRejected(checkpoint.getRejected() + 1);
+                addError(result, lineNumber, ex.getMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                storeChunk(chunk, chunkLines, checkpoint, result, lineNumber);
+            }
+        }
+        storeChunk(chunk, chunkLines, checkpoint, result, reader.lineNumber());
+        checkpoint.setCompleted(true);
+        save(checkpoint);
+
+        log.info("Import {} completed: {} imported, {} rejected", importId, checkpoint.getImported(), checkpoint.getRejected());
+        return withTotals(result, checkpoint);
+    }
+
+    public ImportResultDTO findImport(String importId) {
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(importId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import not found with id:" + importId));
+        return withTotals(ImportResultDTO.builder().importId(importId).errors(List.of()).build(), checkpoint);
+    }
+
+    private void storeChunk(List<BulkOperationDTO> chunk, List<Long> chunkLines, ImportCheckpoint checkpoint,
+                            ImportResultDTO result, long lineNumber) {
+        if (!chunk.isEmpty()) {
+            long imported = checkpoint.getImported();
+            long rejected = checkpoint.getRejected();
+            List<BulkResultDTO> bulkResults = personBulkService.execute(chunk, stored -> {
+                long storedImported = stored.stream().filter(PersonImportService::isCreated).count();
+                save(ImportCheckpoint.builder()
+                        .importId(checkpoint.getImportId())
+                        .lineNumber(Math.max(checkpoint.getLineNumber(), chunkLines.get(stored.size() - 1)))
+                        .imported(imported + storedImported)
+                        .rejected(rejected + stored.size() - storedImported)
+                        .build());
+            });
+            for (BulkResultDTO bulkResult : bulkResults) {
+                if (isCreated(bulkResult)) {
+                    checkpoint.setImported(checkpoint.getImported() + 1);
+                } else {
+                    checkpoint.setRejected(checkpoint.getRejected() + 1);
+                    addError(result, chunkLines.get(bulkResult.getIndex()), bulkResult.getMessage());
+                }
+            }
+            chunk.clear();
+            chunkLines.clear();
+        }
+        checkpoint.setLineNumber(Math.max(checkpoint.getLineNumber(), lineNumber));
+        save(checkpoint);
+    }
+
+    private static boolean isCreated(BulkResultDTO bulkResult) {
+        return bulkResult.getStatus() == HttpStatus.CREATED.value();
+    }
+
+    private PersonDTO parse(FileFormat format, String record) throws IOException {
+        if (format == FileFormat.CSV) {
+            return personCsvMapper.fromCsvLine(record);
+        }
+        return personReader.readValue(record);
+    }
+
+    private void save(ImportCheckpoint checkpoint) {
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        importCheckpointRepository.save(checkpoint);
+    }
+
+    private static void addError(ImportResultDTO result, long lineNumber, String message) {
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("line " + lineNumber + ": " + message);
+        }
+    }
+
+    private static ImportResultDTO withTotals(ImportResultDTO result, ImportCheckpoint checkpoint) {
+        result.setCompleted(checkpoint.isCompleted());
+        result.setLineNumber(checkpoint.getLineNumber());
+        result.setImported(checkpoint.getImported());
+        result.setRejected(checkpoint.getRejected());
+        return result;
+    }
+
+    /**
+     * Reads one record per line, except CSV records whose quoted fields span several lines.
+     * Blank lines are skipped but still counted.
+     */
+    private class RecordReader {
+        private final BufferedReader reader;
+        private final FileFormat format;
+        private long lineNumber;
+
+        RecordReader(BufferedReader reader, FileFormat format) {
+            this.reader = reader;
+            this.format = format;
+        }
+
+        String next() {
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                    if (line == null) {
+                        return null;
+                    }
+                    lineNumber++;
+                } while (line.isBlank());
+
+                if (format != FileFormat.CSV || !personCsvMapper.isIncomplete(line)) {
+                    return line;
+                }
+                StringBuilder record = new StringBuilder(line);
+                while (personCsvMapper.isIncomplete(record) && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    record.append('\n').append(line);
+                }
+                return record.toString();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        long lineNumber() {
+            return lineNumber;
+        }
+    }
+}
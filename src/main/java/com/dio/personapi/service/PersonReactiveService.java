@@ -0,0 +1,52 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.ReactiveConfig;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.exception.BadRequestException;
+import com.dio.personapi.exception.ResourceNotFoundException;
+import com.dio.personapi.repository.PersonReactiveRepository;
+import com.dio.personapi.wrapper.CursorPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the reads of {@link PersonService}, served over R2DBC without holding a
+ * request thread while the database answers. Writes stay on {@link PersonService}.
+ */
+@Service
+@ConditionalOnProperty(name = ReactiveConfig.ENABLED_PROPERTY, havingValue = "true")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class PersonReactiveService {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final PersonReactiveRepository personReactiveRepository;
+
+    public Mono<PersonDTO> findById(Long id) {
+        return personReactiveRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Person not found with id:" + id)));
+    }
+
+    /**
+     * People after the id encoded in {@code cursor}, as returned by {@link CursorPage#encodeCursor(Long)}.
+     */
+    public Flux<PersonDTO> listAfter(String cursor, int limit) {
+        checkLimit(limit);
+        return personReactiveRepository.findByIdGreaterThan(CursorPage.decodeCursor(cursor), limit);
+    }
+
+    public Flux<PersonDTO> search(String name, int limit) {
+        checkLimit(limit);
+        return personReactiveRepository.findByNameKeyStartingWith(PersonService.namePrefixPattern(name), limit);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
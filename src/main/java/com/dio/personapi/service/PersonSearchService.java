@@ -0,0 +1,72 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.MetricsConfig;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PersonSearchResultDTO;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.exception.BadRequestException;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.search.PersonNameIndex;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead search over the names of people, answered from the in-memory {@link PersonNameIndex}.
+ * The index is rebuilt from the database at startup and kept current by the services that change people.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Log4j2
+public class PersonSearchService {
+
+    public static final int MIN_QUERY_LENGTH = 2;
+    public static final int MAX_LIMIT = 50;
+
+    private final PersonRepository personRepository;
+    private final PersonNameIndex personNameIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public PersonSearchService(PersonRepository personRepository,
+                               PersonNameIndex personNameIndex,
+                               PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.personNameIndex = personNameIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Runs once the application is ready, after the data migrations. Searches made while it runs see
+     * the people indexed so far.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long start = System.nanoTime();
+        personNameIndex.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<PersonDTO> people = personRepository.streamAllDTO()) {
+                people.forEach(person -> personNameIndex.put(person.getId(), person.getFirstName(), person.getLastName()));
+            }
+        });
+        log.info("Indexed the names of {} people in {} ms", personNameIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<PersonSearchResultDTO> search(String query, int limit) {
+        String key = Person.nameKey(query);
+        if (key == null || key.length() < MIN_QUERY_LENGTH) {
+            throw new BadRequestException("The search text must have at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return personNameIndex.search(key, limit);
+    }
+}
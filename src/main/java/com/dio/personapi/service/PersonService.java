@@ -1,59 +1,196 @@
 package com.dio.personapi.service;
 
+import com.dio.personapi.config.CacheConfig;
+import com.dio.personapi.config.MetricsConfig;
 import com.dio.personapi.dto.MessageResponseDTO;
 import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PersonPhoneDTO;
+import com.dio.personapi.dto.PhoneDTO;
+import com.dio.personapi.duplicate.DuplicateGuard;
 import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.exception.BadRequestException;
 import com.dio.personapi.exception.ResourceNotFoundException;
 import com.dio.personapi.mapper.PersonMapper;
 import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.search.PersonNameIndex;
+import com.dio.personapi.validation.Cpf;
+import com.dio.personapi.wrapper.CursorPage;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class PersonService {
 
+    public static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     private final PersonRepository personRepository;
     private final PersonMapper personMapper;
+    private final PersonNameIndex personNameIndex;
+    private final DuplicateGuard duplicateGuard;
 
     public MessageResponseDTO createPerson(PersonDTO personDTO) {
         Person personToSave = personMapper.toModel(personDTO);
+        duplicateGuard.checkNotDuplicate(personToSave);
 
         Person savedPerson = personRepository.save(personToSave);
+        duplicateGuard.add(savedPerson);
+        personNameIndex.put(savedPerson.getId(), savedPerson.getFirstName(), savedPerson.getLastName());
         return createMessageResponse(savedPerson.getId(), "Saved person with Id");
     }
 
+    /**
+     * Cached by id, and evicted once a replace or delete of the person commits. The cached body carries the
+     * version it was read at, which is its ETag, so a hit needs no database round trip. A read racing a replace
+     * may still cache the body from before it; that body is then served with its own ETag until it expires.
+     */
+    @Cacheable(cacheNames = CacheConfig.PEOPLE_CACHE, key = "#id")
     public PersonDTO findById(Long id) {
-        Person person = verifyIfExists(id);
-        return personMapper.toDTO(person);
+        PersonDTO person = personRepository.findDTOById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Person not found with id:" + id));
+        return withPhones(List.of(person)).get(0);
     }
 
-    public Page<PersonDTO> listAll(Pageable pageable) {
-        Page<Person> allPeople = personRepository.findAll(pageable);
-        return allPeople.map(personMapper::toDTO);
+    public PersonDTO findByCpf(String cpf) {
+        long cpfNumber = Cpf.parse(cpf);
+        if (cpfNumber == Cpf.INVALID) {
+            throw new BadRequestException("Invalid CPF: " + cpf);
+        }
+        PersonDTO person = personRepository.findDTOByCpf(Cpf.format(cpfNumber))
+                .orElseThrow(() -> new ResourceNotFoundException("Person not found with CPF:" + cpf));
+        return withPhones(List.of(person)).get(0);
     }
 
-    public List<Person> findByFirstName(String name) {
-        return personRepository.findByFirstName(name);
+    public PersonDTO findByPhoneNumber(String number) {
+        String canonicalNumber = Phone.canonicalNumber(number);
+        if (canonicalNumber == null || canonicalNumber.isEmpty()) {
+            throw new BadRequestException("The phone number cannot be empty");
+        }
+        PersonDTO person = personRepository.findDTOByPhoneNumber(canonicalNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Person not found with phone number:" + number));
+        return withPhones(List.of(person)).get(0);
     }
 
+    /**
+     * Strong ETag of a person at a row version.
+     */
+    public static String eTagOf(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Strong ETag of a page of people: a hash of the total and of the id and version of every person
+     * in the page, which changes whenever the page body would.
+     */
+    public static String eTagOf(Page<PersonDTO> people) {
+        long hash = hash(FNV_OFFSET_BASIS, people.getTotalElements());
+        for (PersonDTO person : people) {
+            hash = hash(hash, person.getId());
+            hash = hash(hash, person.getVersion());
+        }
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * A page of people with their row versions but without their phones, enough to compute the
+     * {@link #eTagOf(Page) ETag} of the page before {@link #withPhones(Page) reading the phones}.
+     */
+    public Page<PersonDTO> listAllWithoutPhones(Pageable pageable) {
+        return personRepository.findAllDTO(pageable);
+    }
+
+    public Page<PersonDTO> withPhones(Page<PersonDTO> people) {
+        withPhones(people.getContent());
+        return people;
+    }
+
+    /**
+     * Keyset pagination: seeks past the id encoded in the cursor instead of using OFFSET,
+     * and reads one extra row to know whether there is a next page, so no count query is issued.
+     */
+    public CursorPage<PersonDTO> listAfter(String cursor, int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        Long afterId = CursorPage.decodeCursor(cursor);
+
+        List<PersonDTO> people = personRepository.findDTOByIdGreaterThan(afterId,
+                PageRequest.of(0, size + 1, Sort.by("id")));
+
+        boolean hasNext = people.size() > size;
+        List<PersonDTO> content = withPhones(hasNext ? people.subList(0, size) : people);
+
+        return CursorPage.<PersonDTO>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(hasNext ? CursorPage.encodeCursor(content.get(size - 1).getId()) : null)
+                .build();
+    }
+
+    /**
+     * Case and accent insensitive search of people whose first or last name starts with {@code name},
+     * ordered by id unless the page asks for another order.
+     */
+    public Page<PersonDTO> search(String name, Pageable pageable) {
+        String pattern = namePrefixPattern(name);
+        Pageable page = pageable.getSort().isSorted()
+                ? pageable
+                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+
+        Page<PersonDTO> people = personRepository.findDTOByNameKeyStartingWith(pattern, page);
+        withPhones(people.getContent());
+        return people;
+    }
+
+    /**
+     * LIKE pattern matching the name keys that start with the key of {@code name}, wildcards escaped by '!'.
+     */
+    static String namePrefixPattern(String name) {
+        String key = Person.nameKey(name);
+        if (key == null || key.isEmpty()) {
+            throw new BadRequestException("The name to search cannot be empty");
+        }
+        return key.replaceAll("[!%_]", "!$0") + "%";
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.PEOPLE_CACHE, key = "#id")
     public void delete(Long id) {
-        verifyIfExists(id);
+        Person person = verifyIfExists(id);
 
-        personRepository.deleteById(id);
+        personRepository.delete(person);
+        personNameIndex.remove(id);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PEOPLE_CACHE, key = "#id")
     public void replace(Long id, PersonDTO personDTO) {
-        verifyIfExists(id);
+        Person person = verifyIfExists(id);
 
         Person personToUpdate = personMapper.toModel(personDTO);
+        personToUpdate.setId(id);
+        personToUpdate.setVersion(person.getVersion());
+        personToUpdate.reusePhoneIds(person);
 
         personRepository.save(personToUpdate);
+        duplicateGuard.add(personToUpdate);
+        personNameIndex.put(id, personToUpdate.getFirstName(), personToUpdate.getLastName());
     }
 
     private MessageResponseDTO createMessageResponse(Long id, String message) {
@@ -67,4 +204,30 @@ public class PersonService {
         return personRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Person not found with id:" + id));
     }
+
+    private static long hash(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Fills the phones of projected people with a single query over all their ids,
+     * so a page costs two selects whatever its size.
+     */
+    private List<PersonDTO> withPhones(List<PersonDTO> people) {
+        if (people.isEmpty()) {
+            return people;
+        }
+        List<Long> ids = people.stream().map(PersonDTO::getId).collect(Collectors.toList());
+
+        Map<Long, List<PhoneDTO>> phonesByPerson = personRepository.findPhoneDTOsByPersonIdIn(ids).stream()
+                .collect(Collectors.groupingBy(PersonPhoneDTO::getPersonId,
+                        Collectors.mapping(PersonPhoneDTO::toPhoneDTO, Collectors.toList())));
+
+        people.forEach(person -> person.setPhones(phonesByPerson.getOrDefault(person.getId(), new ArrayList<>())));
+        return people;
+    }
 }
@@ -0,0 +1,88 @@
+package com.dio.personapi.validation;
+
+/**
+ * Parsing and formatting of CPFs (Brazilian individual taxpayer numbers) as their 11 digit numeric value.
+ * Parsing reads the text once, checking the punctuation and both check digits on the way, without
+ * regular expressions or allocations.
+ */
+public final class Cpf {
+
+    public static final long INVALID = -1;
+
+    private static final int DIGITS = 11;
+    private static final int FORMATTED_LENGTH = 14;
+
+    private Cpf() {
+    }
+
+    /**
+     * Numeric value of a CPF written as 11 digits, optionally punctuated as {@code 000.000.000-00}, or
+     * {@link #INVALID} when the layout or a check digit is wrong, or all digits are equal.
+     */
+    public static long parse(CharSequence text) {
+        if (text == null || text.length() < DIGITS || text.length() > FORMATTED_LENGTH) {
+            return INVALID;
+        }
+        long value = 0;
+        int digits = 0;
+        int firstSum = 0;
+        int secondSum = 0;
+        boolean allEqual = true;
+        boolean separated = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!separated && (c == '.' && (digits == 3 || digits == 6) || c == '-' && digits == 9)) {
+                separated = true;
+                continue;
+            }
+            if (c < '0' || c > '9' || digits == DIGITS) {
+                return INVALID;
+            }
+            int digit = c - '0';
+            if (digits < 9) {
+                firstSum += digit * (10 - digits);
+                secondSum += digit * (11 - digits);
+            } else if (digits == 9) {
+                if (digit != checkDigit(firstSum)) {
+                    return INVALID;
+                }
+                secondSum += digit * 2;
+            } else if (digit != checkDigit(secondSum)) {
+                return INVALID;
+            }
+            allEqual &= digits == 0 || digit == value % 10;
+            value = value * 10 + digit;
+            digits++;
+            separated = false;
+        }
+        return digits == DIGITS && !allEqual ? value : INVALID;
+    }
+
+    public static boolean isValid(CharSequence text) {
+        return parse(text) != INVALID;
+    }
+
+    /**
+     * The {@code 000.000.000-00} form of a numeric CPF.
+     */
+    public static String format(long value) {
+        char[] text = new char[FORMATTED_LENGTH];
+        long remaining = value;
+        for (int i = FORMATTED_LENGTH - 1; i >= 0; i--) {
+            if (i == 3 || i == 7) {
+                text[i] = '.';
+            } else if (i == 11) {
+                text[i] = '-';
+            } else {
+                text[i] = (char) ('0' + remaining % 10);
+                remaining /= 10;
+            }
+        }
+        return new String(text);
+    }
+
+    private static int checkDigit(int sum) {
+        int remainder = sum % 11;
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
+}
@@ -0,0 +1,25 @@
+package com.dio.personapi.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The value must be a valid CPF, as 11 digits or as {@code 000.000.000-00}. Null values are valid.
+ */
+@Documented
+@Constraint(validatedBy = CpfValidator.class)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidCpf {
+
+    String message() default "invalid Brazilian individual taxpayer registry number (CPF)";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -1,9 +1,14 @@
 package com.dio.personapi.controller;
 
+import com.dio.personapi.dto.BulkOperationDTO;
+import com.dio.personapi.dto.BulkResultDTO;
 import com.dio.personapi.dto.MessageResponseDTO;
 import com.dio.personapi.dto.PersonDTO;
-import com.dio.personapi.entities.Person;
+import com.dio.personapi.dto.PersonSearchResultDTO;
 import com.dio.personapi.exception.ResourceNotFoundException;
+import com.dio.personapi.enums.BulkOperationType;
+import com.dio.personapi.service.PersonBulkService;
+import com.dio.personapi.service.PersonSearchService;
 import com.dio.personapi.service.PersonService;
 import com.dio.personapi.utils.MessageDTOCreator;
 import com.dio.personapi.utils.PersonUtils;
@@ -18,9 +23,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -33,6 +43,12 @@ class PersonControllerTest {
     @Mock
     private PersonService personService;
 
+    @Mock
+    private PersonBulkService personBulkService;
+
+    @Mock
+    private PersonSearchService personSearchService;
+
     @InjectMocks
     private PersonController personController;
 
@@ -41,25 +57,34 @@ class PersonControllerTest {
 
         PersonDTO personDTO = PersonUtils.createFakeDTO();
         MessageResponseDTO messageResponseDTO = MessageDTOCreator.messageResponseCreator();
-        List<Person> people = List.of(PersonUtils.createFakeEntity());
+        List<PersonDTO> people = List.of(PersonUtils.createFakeDTO());
 
-        PageImpl<PersonDTO> personDTOPage = new PageImpl<PersonDTO>(List.of(PersonUtils.createFakeDTO()));
+        PersonDTO listedPerson = PersonUtils.createFakeDTOEntity();
+        listedPerson.setVersion(0L);
+        PageImpl<PersonDTO> personDTOPage = new PageImpl<PersonDTO>(List.of(listedPerson));
 
         BDDMockito.when(personService.createPerson(ArgumentMatchers.any(PersonDTO.class)))
                 .thenReturn(messageResponseDTO);
 
-        BDDMockito.when(personService.listAll(ArgumentMatchers.any()))
+        BDDMockito.when(personService.listAllWithoutPhones(ArgumentMatchers.any()))
                 .thenReturn(personDTOPage);
 
+        BDDMockito.when(personService.withPhones(ArgumentMatchers.<Page<PersonDTO>>any()))
+                .thenReturn(personDTOPage);
+
+        personDTO.setVersion(0L);
         BDDMockito.when(personService.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(personDTO);
 
-        BDDMockito.when(personService.findByFirstName(ArgumentMatchers.anyString()))
-                .thenReturn(people);
+        BDDMockito.when(personService.search(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenReturn(new PageImpl<>(people));
 
         BDDMockito.doNothing().when(personService).replace(ArgumentMatchers.anyLong(), ArgumentMatchers.any(PersonDTO.class));
 
         BDDMockito.doNothing().when(personService).delete(ArgumentMatchers.anyLong());
+
+        BDDMockito.when(personBulkService.execute(ArgumentMatchers.anyList()))
+                .thenReturn(List.of(BulkResultDTO.builder().index(0).operation(BulkOperationType.CREATE).id(1L).status(201).build()));
     }
 
     @Test
@@ -77,7 +102,7 @@ class PersonControllerTest {
     @DisplayName("List returns list of people inside page object when successful")
     void listAll_ReturnsListOfPeopleInsidePageObject_WhenSuccessful() {
         String expectedNameFirstName = PersonUtils.createFakeDTO().getFirstName();
-        Page<PersonDTO> personDTOPage = personController.listAll(null).getBody();
+        Page<PersonDTO> personDTOPage = personController.listAll(null, webRequest()).getBody();
 
         assertThat(personDTOPage).isNotNull();
         assertThat(personDTOPage.toList().get(0).getFirstName()).isEqualTo(expectedNameFirstName);
@@ -89,12 +114,40 @@ class PersonControllerTest {
 
         Long expectedId = PersonUtils.createFakeDTO().getId();
 
-        PersonDTO personDTO = personController.findById(1L).getBody();
+        PersonDTO personDTO = personController.findById(1L, webRequest()).getBody();
 
         assertThat(personDTO).isNotNull();
         assertThat(personDTO.getId()).isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("FindById returns not modified when ETag matches")
+    void findById_ReturnsNotModified_WhenETagMatches() {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/people/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<PersonDTO> entity = personController.findById(1L, new ServletWebRequest(request, response));
+
+        assertThat(entity).isNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    @Test
+    @DisplayName("FindById sends the ETag of the version the person was read at")
+    void findById_SendsETagOfReadVersion_WhenSuccessful() {
+
+        PersonDTO person = PersonUtils.createFakeDTO();
+        person.setVersion(1L);
+        BDDMockito.when(personService.findById(1L)).thenReturn(person);
+
+        ResponseEntity<PersonDTO> entity = personController.findById(1L, webRequest());
+
+        assertThat(entity.getHeaders().getETag()).isEqualTo("\"1\"");
+        assertThat(entity.getBody()).isSameAs(person);
+    }
+
     @Test
     @DisplayName("FindById returns exception when id not found")
     void findById_ReturnsException_WhenIdNotFound() {
@@ -105,7 +158,7 @@ class PersonControllerTest {
         Exception exception = null;
 
         try {
-            PersonDTO personDTO = personController.findById(1L).getBody();
+            PersonDTO personDTO = personController.findById(1L, webRequest()).getBody();
         } catch (ResourceNotFoundException e) {
             exception = e;
         }
@@ -114,15 +167,27 @@ class PersonControllerTest {
     }
 
     @Test
-    @DisplayName("FindByFirstName returns list of people when successful")
-    void findByFirstName_ReturnsListPeople_WhenSuccessful() {
+    @DisplayName("Search returns page of people when successful")
+    void search_ReturnsPageOfPeople_WhenSuccessful() {
+
+        String expectedFirstName = PersonUtils.createFakeDTO().getFirstName();
 
-        String expectedFirstName = PersonUtils.createFakeEntity().getFirstName();
+        Page<PersonDTO> personPage = personController.search("Mi", PageRequest.of(0, 10)).getBody();
+
+        assertThat(personPage).isNotNull();
+        assertThat(personPage.toList().get(0).getFirstName()).isEqualTo(expectedFirstName);
+    }
+
+    @Test
+    @DisplayName("SearchNames returns ranked results of the search service when successful")
+    void searchNames_ReturnsRankedResults_WhenSuccessful() {
+        List<PersonSearchResultDTO> results = List.of(PersonSearchResultDTO.builder().id(1L).firstName("Michele").build());
+        BDDMockito.when(personSearchService.search("mich", 5)).thenReturn(results);
 
-        List<Person> person = personController.findByFirstName("Maria").getBody();
+        ResponseEntity<List<PersonSearchResultDTO>> response = personController.searchNames("mich", 5);
 
-        assertThat(person).isNotNull();
-        assertThat(person.get(0).getFirstName()).isEqualTo(expectedFirstName);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(results);
     }
 
     @Test
@@ -154,4 +219,23 @@ class PersonControllerTest {
         assertThat(entity).isNotNull();
         assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Bulk returns one result per operation when successful")
+    void bulk_ReturnsOneResultPerOperation_WhenSuccessful() {
+
+        BulkOperationDTO operation = BulkOperationDTO.builder()
+                .operation(BulkOperationType.CREATE)
+                .person(PersonUtils.createFakeDTO())
+                .build();
+
+        List<BulkResultDTO> results = personController.bulk(List.of(operation)).getBody();
+
+        assertThat(results).isNotNull();
+        assertThat(results.get(0).getStatus()).isEqualTo(201);
+    }
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/v1/people"), new MockHttpServletResponse());
+    }
+}
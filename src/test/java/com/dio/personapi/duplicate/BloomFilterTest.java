@@ -0,0 +1,31 @@
+package com.dio.personapi.duplicate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for the Bloom filter")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("MightContain is true for every added value and rarely for other values")
+    void mightContain_HasNoFalseNegativesAndFewFalsePositives_WhenFilterIsFull() {
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> bloomFilter.add(cpf(i)));
+
+        long falseNegatives = IntStream.range(0, 10_000).filter(i -> !bloomFilter.mightContain(cpf(i))).count();
+        long falsePositives = IntStream.range(10_000, 20_000).filter(i -> bloomFilter.mightContain(cpf(i))).count();
+
+        assertThat(bloomFilter.getHashCount()).isEqualTo(7);
+        assertThat(falseNegatives).isZero();
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    private static String cpf(int i) {
+        String digits = String.format("%011d", i * 7919L);
+        return digits.substring(0, 3) + "." + digits.substring(3, 6) + "." + digits.substring(6, 9) + "-" + digits.substring(9);
+    }
+}
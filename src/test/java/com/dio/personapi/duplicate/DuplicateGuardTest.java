@@ -0,0 +1,110 @@
+package com.dio.personapi.duplicate;
+
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.enums.PhoneType;
+import com.dio.personapi.exception.DuplicateResourceException;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.utils.PersonUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({DuplicateGuard.class, SimpleMeterRegistry.class})
+@DisplayName("Tests for the duplicate guard")
+class DuplicateGuardTest {
+
+    @Autowired
+    private DuplicateGuard duplicateGuard;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("CheckNotDuplicate throws DuplicateResourceException when the CPF or a phone number is stored")
+    void checkNotDuplicate_ThrowsDuplicateResourceException_WhenCpfOrPhoneIsStored() {
+        Person saved = personRepository.saveAndFlush(PersonUtils.createFakePerson());
+        duplicateGuard.load();
+
+        Person sameCpf = person(saved.getCpf(), "(11)90000-0001");
+        Person samePhone = person("987.654.321-00", saved.getPhones().get(0).getNumber());
+
+        Assertions.assertThatExceptionOfType(DuplicateResourceException.class)
+                .isThrownBy(() -> duplicateGuard.checkNotDuplicate(sameCpf))
+                .withMessageContaining(saved.getCpf());
+        Assertions.assertThatExceptionOfType(DuplicateResourceException.class)
+                .isThrownBy(() -> duplicateGuard.checkNotDuplicate(samePhone))
+                .withMessageContaining(saved.getPhones().get(0).getNumber());
+    }
+
+    @Test
+    @DisplayName("CheckNotDuplicate runs no query when the CPF and phone numbers are new")
+    void checkNotDuplicate_RunsNoQuery_WhenValuesAreNew() {
+        personRepository.saveAndFlush(PersonUtils.createFakePerson());
+        duplicateGuard.load();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        duplicateGuard.checkNotDuplicate(person("987.654.321-00", "(11)90000-0001"));
+
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("CheckNotDuplicate throws DuplicateResourceException when a person repeats a phone number")
+    void checkNotDuplicate_ThrowsDuplicateResourceException_WhenPhoneIsRepeated() {
+        Person person = person("987.654.321-00", "(11)90000-0001");
+        person.setPhones(List.of(person.getPhones().get(0), person.getPhones().get(0)));
+
+        Assertions.assertThatExceptionOfType(DuplicateResourceException.class)
+                .isThrownBy(() -> duplicateGuard.checkNotDuplicate(person));
+    }
+
+    @Test
+    @DisplayName("IsDuplicate is true only for violations of the unique keys of CPFs and phone numbers")
+    void isDuplicate_ReturnsTrue_WhenUniqueKeyIsViolated() {
+        Person saved = personRepository.saveAndFlush(PersonUtils.createFakePerson());
+
+        DataIntegrityViolationException sameCpf = saveFailure(person(saved.getCpf(), "(11)90000-0001"));
+        DataIntegrityViolationException samePhone = saveFailure(person("987.654.321-00", saved.getPhones().get(0).getNumber()));
+        Person withoutPhoneType = person(PersonUtils.validCpf(1), "(11)90000-0002");
+        withoutPhoneType.getPhones().get(0).setType(null);
+        DataIntegrityViolationException nullType = saveFailure(withoutPhoneType);
+
+        Assertions.assertThat(DuplicateGuard.isDuplicate(sameCpf)).isTrue();
+        Assertions.assertThat(DuplicateGuard.isDuplicate(samePhone)).isTrue();
+        Assertions.assertThat(DuplicateGuard.isDuplicate(nullType)).isFalse();
+    }
+
+    private DataIntegrityViolationException saveFailure(Person person) {
+        DataIntegrityViolationException failure = catchThrowableOfType(() -> personRepository.saveAndFlush(person),
+                DataIntegrityViolationException.class);
+        // the failed insert stays queued in the session otherwise
+        entityManager.clear();
+        return failure;
+    }
+
+    private static Person person(String cpf, String number) {
+        Person person = PersonUtils.createFakePerson();
+        person.setCpf(cpf);
+        person.setPhones(List.of(Phone.builder().type(PhoneType.MOBILE).number(number).build()));
+        return person;
+    }
+}
@@ -1,14 +1,21 @@
 package com.dio.personapi.integration;
 
 import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.TokenRequestDTO;
+import com.dio.personapi.dto.TokenResponseDTO;
 import com.dio.personapi.entities.Person;
 import com.dio.personapi.entities.PersonUser;
 import com.dio.personapi.exception.ResourceNotFoundException;
+import com.dio.personapi.metrics.ServerTimingFilter;
 import com.dio.personapi.repository.PersonRepository;
 import com.dio.personapi.repository.PersonUserRepository;
+import com.dio.personapi.utils.PersonGenerator;
 import com.dio.personapi.utils.PersonUserCreater;
 import com.dio.personapi.utils.PersonUtils;
+import com.dio.personapi.utils.QueryBudgetAssert;
 import com.dio.personapi.wrapper.PageableResponse;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,14 +31,20 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"personapi.statements.response-headers=true", "personapi.server-timing.sample-rate=1"})
 @AutoConfigureTestDatabase
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 class PersonControllerIT {
@@ -124,6 +137,26 @@ class PersonControllerIT {
         Assertions.assertThat(person.getId()).isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("FindByCpf returns person when the CPF is given with or without punctuation")
+    void findByCpf_ReturnsPerson_WhenSuccessful() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        Person personSaved = personRepository.save(PersonUtils.createFakePerson());
+
+        PersonDTO formatted = testRestTemplateUser.getForObject("/api/v1/people/by-cpf/{cpf}", PersonDTO.class, personSaved.getCpf());
+        PersonDTO digits = testRestTemplateUser.getForObject("/api/v1/people/by-cpf/{cpf}", PersonDTO.class,
+                personSaved.getCpf().replaceAll("\\D", ""));
+        ResponseEntity<String> invalid = testRestTemplateUser.getForEntity("/api/v1/people/by-cpf/{cpf}", String.class, "12345678900");
+
+        Assertions.assertThat(formatted.getId()).isEqualTo(personSaved.getId());
+        Assertions.assertThat(digits.getId()).isEqualTo(personSaved.getId());
+        Assertions.assertThat(digits.getPhones()).hasSize(1);
+        Assertions.assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     @DisplayName("FindById returns exception when id not found")
     void findById_ReturnsException_WhenIdNotFound() {
@@ -145,8 +178,8 @@ class PersonControllerIT {
     }
 
     @Test
-    @DisplayName("FindByFirstName returns list of people when successful")
-    void findByFirstName_ReturnsListPeople_WhenSuccessful() {
+    @DisplayName("Search returns page of people when successful")
+    void search_ReturnsPageOfPeople_WhenSuccessful() {
 
         PersonUser user = PersonUserCreater.PersonUserUSER();
         personUserRepository.save(user);
@@ -155,13 +188,14 @@ class PersonControllerIT {
 
         String expectedFirstName = personSaved.getFirstName();
 
-        String url = String.format("/api/v1/people/find?firstName=%s", expectedFirstName);
-        List<Person> person =  testRestTemplateUser.exchange(url, HttpMethod.GET, null,
-                new ParameterizedTypeReference<List<Person>>() {
+        String url = String.format("/api/v1/people/find?name=%s", expectedFirstName.substring(0, 3).toUpperCase());
+        PageableResponse<PersonDTO> personPage = testRestTemplateUser.exchange(url, HttpMethod.GET, null,
+                new ParameterizedTypeReference<PageableResponse<PersonDTO>>() {
                 }).getBody();
 
-        Assertions.assertThat(person).isNotNull();
-        Assertions.assertThat(person.get(0).getFirstName()).isEqualTo(expectedFirstName);
+        Assertions.assertThat(personPage).isNotNull();
+        Assertions.assertThat(personPage.toList()).hasSize(1);
+        Assertions.assertThat(personPage.toList().get(0).getFirstName()).isEqualTo(expectedFirstName);
     }
 
     @Test
@@ -181,6 +215,47 @@ class PersonControllerIT {
         Assertions.assertThat(personResponseEntity .getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    @DisplayName("Replace updates the person when it keeps its phone number")
+    void replace_UpdatePerson_WhenPhoneNumberIsKept() {
+
+        PersonUser user = PersonUserCreater.PersonUserADMIN();
+        personUserRepository.save(user);
+
+        Person personSaved = personRepository.save(PersonUtils.createFakePerson());
+        PersonDTO personDTO = PersonUtils.createFakeDTO();
+        personDTO.setLastName("New last name");
+        personDTO.getPhones().get(0).setNumber("(11)99999-9999");
+
+        ResponseEntity<Void> personResponseEntity = testRestTemplateAdmin.exchange("/api/v1/people/admin/{id}", HttpMethod.PUT,
+                new HttpEntity<>(personDTO), Void.class, personSaved.getId());
+        PersonDTO person = testRestTemplateAdmin.getForObject("/api/v1/people/{id}", PersonDTO.class, personSaved.getId());
+
+        Assertions.assertThat(personResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        Assertions.assertThat(person.getLastName()).isEqualTo("New last name");
+        Assertions.assertThat(person.getPhones()).extracting("number").containsExactly("(11)99999-9999");
+    }
+
+    @Test
+    @DisplayName("Replace returns 400 and keeps the person when the CPF is invalid")
+    void replace_Returns400_WhenCpfIsInvalid() {
+
+        PersonUser user = PersonUserCreater.PersonUserADMIN();
+        personUserRepository.save(user);
+
+        Person personSaved = personRepository.save(PersonUtils.createFakePerson());
+        PersonDTO personDTO = PersonUtils.createFakeDTO();
+        personDTO.setCpf("111.111.111-11");
+        personDTO.getPhones().get(0).setNumber("(11)99999-9999");
+
+        ResponseEntity<String> personResponseEntity = testRestTemplateAdmin.exchange("/api/v1/people/admin/{id}", HttpMethod.PUT,
+                new HttpEntity<>(personDTO), String.class, personSaved.getId());
+
+        Assertions.assertThat(personResponseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(personResponseEntity.getBody()).contains("cpf");
+        Assertions.assertThat(personRepository.findDTOById(personSaved.getId()).get().getCpf()).isEqualTo(personSaved.getCpf());
+    }
+
     @Test
     @DisplayName("DeleteById removes person when successful")
     void deleteById_RemovesPerson_WhenSuccessful() {
@@ -212,4 +287,204 @@ class PersonControllerIT {
         Assertions.assertThat(personResponseEntity).isNotNull();
         Assertions.assertThat(personResponseEntity.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
     }
+
+    @Test
+    @DisplayName("Export streams people as CSV when successful")
+    void export_StreamsPeopleAsCsv_WhenSuccessful() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        Person personSaved = personRepository.save(PersonUtils.createFakePerson());
+
+        ResponseEntity<String> response = testRestTemplateUser.getForEntity("/api/v1/people/export?format=csv", String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getBody())
+                .startsWith("id,firstName,lastName,cpf,birthDate,phones\n")
+                .contains(personSaved.getId() + "," + personSaved.getFirstName());
+    }
+
+    @Test
+    @DisplayName("FindById returns not modified when ETag has not changed")
+    void findById_ReturnsNotModified_WhenETagHasNotChanged() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        Person personSaved = personRepository.save(PersonUtils.createFakePerson());
+
+        ResponseEntity<PersonDTO> first = testRestTemplateUser.getForEntity("/api/v1/people/{id}", PersonDTO.class, personSaved.getId());
+        String eTag = first.getHeaders().getETag();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<PersonDTO> second = testRestTemplateUser.exchange("/api/v1/people/{id}", HttpMethod.GET,
+                new HttpEntity<>(headers), PersonDTO.class, personSaved.getId());
+
+        Assertions.assertThat(eTag).isNotNull();
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(second.getBody()).isNull();
+        // at most the user: the ETag is the version of the cached person
+        QueryBudgetAssert.assertThat(second).hasQueriesAtMost(1);
+    }
+
+    @Test
+    @DisplayName("Token grants access with the user roles when credentials are valid")
+    void token_GrantsAccessWithUserRoles_WhenCredentialsAreValid() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        TokenResponseDTO token = testRestTemplateUser.postForObject("/api/v1/auth/token",
+                new TokenRequestDTO("userVisit", "projectSpringBoot"), TokenResponseDTO.class);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token.getAccessToken());
+        ResponseEntity<String> list = testRestTemplateUser.exchange("/api/v1/people", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        ResponseEntity<String> delete = testRestTemplateUser.exchange("/api/v1/people/admin/{id}", HttpMethod.DELETE,
+                new HttpEntity<>(headers), String.class, 1L);
+
+        headers.setBearerAuth(token.getAccessToken() + "x");
+        ResponseEntity<String> tampered = testRestTemplateUser.exchange("/api/v1/people", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        Assertions.assertThat(token.getTokenType()).isEqualTo("Bearer");
+        Assertions.assertThat(list.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(list.getHeaders().containsKey(HttpHeaders.SET_COOKIE)).isFalse();
+        Assertions.assertThat(delete.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        Assertions.assertThat(tampered.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("Metrics time the service layer and Hibernate sessions by endpoint and outcome")
+    void metrics_TagServiceAndSessionMetersWithEndpoint_WhenPersonIsFound() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        Person personSaved = personRepository.save(PersonUtils.createFakePerson());
+        testRestTemplateUser.getForObject("/api/v1/people/{id}", String.class, personSaved.getId());
+
+        String endpoint = "endpoint:GET /api/v1/people/{id}";
+        ResponseEntity<String> service = testRestTemplateUser.getForEntity(
+                "/actuator/metrics/personapi.service?tag={endpoint}&tag=outcome:SUCCESS", String.class, endpoint);
+        ResponseEntity<String> statements = testRestTemplateUser.getForEntity(
+                "/actuator/metrics/personapi.hibernate.session.statements?tag={endpoint}", String.class, endpoint);
+
+        Assertions.assertThat(service.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(service.getBody()).contains("\"method\"", "findById");
+        Assertions.assertThat(statements.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    @DisplayName("FindById loads the person and its phones within its query budget")
+    void findById_StaysWithinQueryBudget_WhenSuccessful() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        Person personSaved = personRepository.save(PersonUtils.createFakePerson());
+
+        ResponseEntity<PersonDTO> response = testRestTemplateUser.getForEntity("/api/v1/people/{id}", PersonDTO.class, personSaved.getId());
+
+        // the user, the person and its phones
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        QueryBudgetAssert.assertThat(response).hasQueriesAtMost(3).hasNoRepeatedQueries();
+    }
+
+    @Test
+    @DisplayName("ListAfter loads the phones of a page of people without a query per person")
+    void listAfter_HasNoRepeatedQueries_WhenPageHasSeveralPeople() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        PersonGenerator generator = new PersonGenerator(1);
+        for (int i = 0; i < 3; i++) {
+            personRepository.save(generator.person(i));
+        }
+
+        ResponseEntity<String> response = testRestTemplateUser.getForEntity("/api/v1/people?after=&size=3", String.class);
+
+        // the user, the page of people and the phones of all of them
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        QueryBudgetAssert.assertThat(response).hasQueriesAtMost(3).hasRowsAtMost(1 + 3 + 3 * PersonGenerator.MAX_PHONES).hasNoRepeatedQueries();
+    }
+
+    @Test
+    @DisplayName("Replace updates the person and keeps its phone numbers within its query budget")
+    void replace_StaysWithinQueryBudget_WhenSuccessful() {
+
+        PersonUser user = PersonUserCreater.PersonUserADMIN();
+        personUserRepository.save(user);
+
+        PersonGenerator generator = new PersonGenerator(1);
+        Person personSaved = personRepository.save(generator.person(0));
+        PersonDTO personDTO = generator.personDTO(0);
+        personDTO.setLastName("New last name");
+
+        ResponseEntity<String> response = testRestTemplateAdmin.exchange("/api/v1/people/admin/{id}", HttpMethod.PUT,
+                new HttpEntity<>(personDTO), String.class, personSaved.getId());
+
+        // the user, the person with its phones and the update, with the kept phones left untouched
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        QueryBudgetAssert.assertThat(response).hasQueriesAtMost(3);
+    }
+
+    @Test
+    @DisplayName("Create sends the time of each phase in a Server-Timing header when requests are sampled")
+    void createPerson_SendsServerTiming_WhenRequestIsSampled() {
+
+        PersonUser user = PersonUserCreater.PersonUserUSER();
+        personUserRepository.save(user);
+
+        ResponseEntity<String> response = testRestTemplateUser.postForEntity("/api/v1/people",
+                new PersonGenerator(1).personDTO(0), String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Assertions.assertThat(response.getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING_HEADER))
+                .contains("auth;dur=", "validation;dur=", "repository;dur=", "mapper;dur=", "jackson;dur=", "total;dur=");
+    }
+
+    @Test
+    @DisplayName("JFR endpoint records service, query and mapping events for administrators, without the environment")
+    void jfr_ReturnsRecordingWithApplicationEvents_WhenStopped() throws IOException {
+
+        personUserRepository.save(PersonUserCreater.PersonUserUSER());
+        personUserRepository.save(PersonUserCreater.PersonUserADMIN());
+
+        ResponseEntity<String> forbidden = testRestTemplateUser.postForEntity("/actuator/jfr",
+                Map.of("settings", "default"), String.class);
+        ResponseEntity<String> start = testRestTemplateAdmin.postForEntity("/actuator/jfr",
+                Map.of("settings", "default"), String.class);
+        testRestTemplateUser.postForEntity("/api/v1/people", new PersonGenerator(1).personDTO(0), String.class);
+        ResponseEntity<byte[]> stop = testRestTemplateAdmin.exchange("/actuator/jfr", HttpMethod.DELETE, null, byte[].class);
+
+        Path file = Files.createTempFile("recording", ".jfr");
+        List<RecordedEvent> events;
+        try {
+            Files.write(file, stop.getBody());
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        Assertions.assertThat(forbidden.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        Assertions.assertThat(start.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(stop.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(events)
+                .noneMatch(event -> event.getEventType().getName().equals("jdk.InitialEnvironmentVariable")
+                        || event.getEventType().getName().equals("jdk.InitialSystemProperty"));
+        Assertions.assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("com.dio.personapi.Service"))
+                .anyMatch(event -> "createPerson".equals(event.getString("method")));
+        Assertions.assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("com.dio.personapi.Query"))
+                .anyMatch(event -> event.getString("sql").startsWith("insert into person"));
+        Assertions.assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("com.dio.personapi.Mapping"))
+                .anyMatch(event -> "toModel".equals(event.getString("method")));
+    }
 }
@@ -0,0 +1,78 @@
+package com.dio.personapi.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+@DisplayName("Tests for the sampled request log")
+class RequestLogFilterTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("personapi.requests");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    @DisplayName("Sampled requests are logged as key=value pairs with their endpoint and status")
+    void doFilter_LogsRequest_WhenRequestIsSampled() throws Exception {
+        new RequestLogFilter(1).doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.INFO);
+            assertThat(event.getFormattedMessage())
+                    .startsWith("method=GET endpoint=\"GET /api/v1/people/{id}\" status=200 duration_us=")
+                    .endsWith("queries=0 rows=0");
+        });
+    }
+
+    @Test
+    @DisplayName("Server errors are logged at warn level even when the request is not sampled")
+    void doFilter_LogsServerError_WhenRequestIsNotSampled() throws Exception {
+        new RequestLogFilter(0).doFilter(request(), new MockHttpServletResponse(), (req, res) ->
+                ((HttpServletResponse) res).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+        assertThatIllegalStateException().isThrownBy(() -> new RequestLogFilter(0).doFilter(request(),
+                new MockHttpServletResponse(), (req, res) -> {
+                    throw new IllegalStateException("failed");
+                }));
+        new RequestLogFilter(0).doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(appender.list)
+                .extracting(ILoggingEvent::getLevel)
+                .containsOnly(Level.WARN)
+                .hasSize(2);
+        assertThat(appender.list)
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .anyMatch(message -> message.contains("status=503"))
+                .anyMatch(message -> message.contains("status=500"));
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/people/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/people/{id}");
+        return request;
+    }
+}
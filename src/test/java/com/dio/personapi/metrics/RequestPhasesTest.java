@@ -0,0 +1,50 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.metrics.RequestPhases.Phase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for the phases of sampled requests")
+class RequestPhasesTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestPhases.end();
+    }
+
+    @Test
+    @DisplayName("ServerTiming lists the phases the request went through in milliseconds, then the total")
+    void serverTiming_ListsPhasesAndTotal_WhenPhasesWereTimed() {
+        RequestPhases phases = RequestPhases.start();
+        phases.authenticated();
+        phases.add(Phase.REPOSITORY, TimeUnit.MICROSECONDS.toNanos(1500));
+        phases.add(Phase.REPOSITORY, TimeUnit.MICROSECONDS.toNanos(500));
+
+        String serverTiming = phases.serverTiming();
+
+        assertThat(serverTiming)
+                .startsWith("auth;dur=")
+                .contains("repository;dur=2.000;desc=\"Repository calls\", total;dur=")
+                .doesNotContain("validation", "mapper", "jackson");
+        assertThat(RequestPhases.current()).isSameAs(phases);
+    }
+
+    @Test
+    @DisplayName("Authenticated only ends the authentication phase once")
+    void authenticated_KeepsFirstEnd_WhenCalledAgain() throws InterruptedException {
+        RequestPhases phases = RequestPhases.start();
+        phases.authenticated();
+        long auth = phases.getNanos(Phase.AUTH);
+
+        Thread.sleep(5);
+        phases.authenticated();
+
+        assertThat(phases.getNanos(Phase.AUTH)).isEqualTo(auth);
+        assertThat(phases.hasPhase(Phase.AUTH)).isTrue();
+    }
+}
@@ -0,0 +1,76 @@
+package com.dio.personapi.metrics;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for the slow query log")
+class SlowQueryLogTest {
+
+    @Test
+    @DisplayName("Slow statements are kept with their bind shapes, rows and plan, without their bind values")
+    void top_ListsStatementWithShapesRowsAndPlan_WhenStatementIsSlow() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:slowqueries;DB_CLOSE_DELAY=-1");
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ZERO, 20, Duration.ofHours(1), h2, Runnable::run);
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(h2, slowQueryLog);
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table item (id bigint primary key, name varchar(20))");
+                statement.execute("insert into item values (1, 'first'), (2, 'second')");
+            }
+            try (PreparedStatement statement = connection.prepareStatement("select id from item where id = ? and name = ?")) {
+                statement.setLong(1, 2L);
+                statement.setString(2, "second");
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop table item");
+            }
+        }
+
+        assertThat(slowQueryLog.top())
+                .filteredOn(slowQuery -> slowQuery.getSql().startsWith("select"))
+                .singleElement()
+                .satisfies(slowQuery -> {
+                    assertThat(slowQuery.getBinds()).isEqualTo("[Long, String(6)]");
+                    assertThat(slowQuery.getRows()).isEqualTo(1);
+                    assertThat(slowQuery.getExecutions()).isEqualTo(1);
+                    assertThat(slowQuery.getPlan()).containsIgnoringCase("item");
+                    assertThat(slowQuery.getCallSite()).isNotBlank();
+                });
+    }
+
+    @Test
+    @DisplayName("The top table keeps the slowest statements and ignores those under the threshold")
+    void top_KeepsSlowestStatements_WhenTableIsFull() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ofMillis(1), 2, Duration.ofHours(1), null, null);
+
+        finish(slowQueryLog.executed("select 3", null, TimeUnit.MILLISECONDS.toNanos(3)));
+        finish(slowQueryLog.executed("select 1", null, TimeUnit.MILLISECONDS.toNanos(1)));
+        finish(slowQueryLog.executed("select 2", null, TimeUnit.MILLISECONDS.toNanos(2)));
+
+        assertThat(slowQueryLog.executed("select 0", null, TimeUnit.MICROSECONDS.toNanos(500))).isNull();
+        assertThat(slowQueryLog.top())
+                .extracting(SlowQuery::getSql)
+                .containsExactly("select 3", "select 2");
+    }
+
+    private static void finish(SlowQueryLog.Execution execution) {
+        assertThat(execution).isNotNull();
+        execution.finished(0);
+    }
+}
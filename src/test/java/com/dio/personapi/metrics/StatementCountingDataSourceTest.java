@@ -0,0 +1,94 @@
+package com.dio.personapi.metrics;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for the statement counting data source")
+class StatementCountingDataSourceTest {
+
+    private StatementCountingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1");
+        dataSource = new StatementCountingDataSource(h2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table item (id bigint primary key)");
+            statement.execute("insert into item values (1), (2), (3)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        RequestStatements.end();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop table item");
+        }
+    }
+
+    @Test
+    @DisplayName("Statements, rows and repeated SQL of the current request are counted")
+    void executeQuery_CountsStatementsAndRows_WhenRequestIsStarted() throws SQLException {
+        RequestStatements statements = RequestStatements.start();
+
+        try (Connection connection = dataSource.getConnection()) {
+            readAll(connection, "select id from item");
+            for (long id = 1; id <= 3; id++) {
+                try (PreparedStatement statement = connection.prepareStatement("select id from item where id = ?")) {
+                    statement.setLong(1, id);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        resultSet.next();
+                    }
+                }
+            }
+        }
+
+        assertThat(statements.getQueries()).isEqualTo(4);
+        assertThat(statements.getRows()).isEqualTo(6);
+        assertThat(statements.getNanos()).isPositive();
+        assertThat(statements.getMaxExecutions()).isEqualTo(3);
+        assertThat(statements.getMostExecutedSql()).isEqualTo("select id from item where id = ?");
+    }
+
+    @Test
+    @DisplayName("Statements outside of a request are not counted")
+    void executeQuery_CountsNothing_WhenNoRequestIsStarted() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            readAll(connection, "select id from item");
+        }
+
+        RequestStatements statements = RequestStatements.start();
+
+        assertThat(statements.getQueries()).isZero();
+        assertThat(statements.getRows()).isZero();
+    }
+
+    @Test
+    @DisplayName("Proxies are only equal to themselves, as Hibernate tracks statements in hash maps")
+    void equals_ComparesProxies_WhenStatementsAreTracked() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            assertThat(statement).isEqualTo(statement).hasSameHashCodeAs(statement);
+            assertThat(connection).isNotEqualTo(statement);
+        }
+    }
+
+    private static void readAll(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                // only the rows read are counted
+            }
+        }
+    }
+}
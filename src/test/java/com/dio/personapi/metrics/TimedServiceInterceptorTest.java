@@ -0,0 +1,94 @@
+package com.dio.personapi.metrics;
+
+import com.dio.personapi.exception.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@DisplayName("Tests for the timer of @Timed services")
+class TimedServiceInterceptorTest {
+
+    private SimpleMeterRegistry registry;
+    private TimedService service;
+
+    @Service
+    @Timed("test.service")
+    static class TimedService {
+
+        public String find(long id) {
+            if (id < 0) {
+                throw new ResourceNotFoundException("Person not found");
+            }
+            return "found";
+        }
+
+        public String fail() {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", registry);
+        TimedServicePostProcessor postProcessor = new TimedServicePostProcessor(beanFactory.getBeanProvider(MeterRegistry.class));
+        service = (TimedService) postProcessor.postProcessAfterInitialization(new TimedService(), "timedService");
+    }
+
+    @Test
+    @DisplayName("Calls are timed with the endpoint of the request and a success outcome when they return")
+    void find_RecordsSuccessTimer_WhenCallReturns() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/people/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/people/{id}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            assertThat(service.find(1)).isEqualTo("found");
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        Timer timer = registry.find("test.service")
+                .tags("class", "TimedService", "method", "find")
+                .tags("endpoint", "GET /api/v1/people/{id}", "outcome", "SUCCESS", "exception", "None")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Calls are timed with a client error outcome when they throw a 4xx exception")
+    void find_RecordsClientErrorTimer_WhenResponseStatusExceptionIsThrown() {
+        assertThatExceptionOfType(ResourceNotFoundException.class).isThrownBy(() -> service.find(-1));
+
+        Timer timer = registry.find("test.service")
+                .tags("method", "find", "endpoint", "none", "outcome", "CLIENT_ERROR", "exception", "ResourceNotFoundException")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Calls are timed with a server error outcome when they throw any other exception")
+    void fail_RecordsServerErrorTimer_WhenExceptionIsThrown() {
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> service.fail());
+
+        assertThat(registry.find("test.service").tags("method", "fail", "outcome", "SERVER_ERROR").timer())
+                .isNotNull()
+                .extracting(Timer::count)
+                .isEqualTo(1L);
+    }
+}
@@ -0,0 +1,95 @@
+package com.dio.personapi.migration;
+
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.enums.PhoneType;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.utils.PersonUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migrations run in transactions of their own, so tests do not run in one and delete their rows.
+ */
+@DataJpaTest
+@Import(DataMigrations.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests for the data migrations")
+class DataMigrationsTest {
+
+    @Autowired
+    private DataMigrations dataMigrations;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("delete from phone");
+        jdbcTemplate.update("delete from person");
+    }
+
+    @Test
+    @DisplayName("Migrations store phone numbers in their canonical form and resolve numbers that collide once normalized")
+    void afterSingletonsInstantiated_CanonicalizesPhoneNumbers_WhenLegacyNumbersAreStored() {
+        Person owner = personRepository.saveAndFlush(PersonUtils.createFakePerson());
+        Person other = personRepository.saveAndFlush(person(PersonUtils.validCpf(1), "(11)90000-0001"));
+        insertPhone(1001, owner, "11 99999-9999");
+        insertPhone(1002, owner, "1188888-8888");
+        insertPhone(1003, owner, "+55 11 90000-0001");
+        insertPhone(1004, other, "11 97777 7777");
+        insertPhone(1005, owner, "(11) 97777-7777");
+
+        dataMigrations.afterSingletonsInstantiated();
+
+        assertThat(numberOf(1001)).as("repeats a number of its person").isEmpty();
+        assertThat(numberOf(1002)).containsExactly("(11)88888-8888");
+        assertThat(numberOf(1003)).as("number of another person").containsExactly("+55 11 90000-0001");
+        assertThat(numberOf(1004)).containsExactly("(11)97777-7777");
+        assertThat(numberOf(1005)).as("number of another person").containsExactly("(11) 97777-7777");
+        assertThat(numberOf(owner.getPhones().get(0).getId())).containsExactly("(11)99999-9999");
+    }
+
+    @Test
+    @DisplayName("Migrations leave canonical phone numbers unchanged when they run again")
+    void afterSingletonsInstantiated_UpdatesNoPhone_WhenNumbersAreCanonical() {
+        Person owner = personRepository.saveAndFlush(PersonUtils.createFakePerson());
+        insertPhone(1001, owner, "1188888-8888");
+        dataMigrations.afterSingletonsInstantiated();
+
+        dataMigrations.afterSingletonsInstantiated();
+
+        assertThat(jdbcTemplate.queryForList("select number from phone order by id", String.class))
+                .containsExactly("(11)99999-9999", "(11)88888-8888");
+    }
+
+    private void insertPhone(long id, Person person, String number) {
+        jdbcTemplate.update("insert into phone (id, type, number, person_id) values (?, ?, ?, ?)",
+                id, PhoneType.MOBILE.name(), number, person.getId());
+    }
+
+    private List<String> numberOf(long phoneId) {
+        return jdbcTemplate.queryForList("select number from phone where id = ?", String.class, phoneId);
+    }
+
+    private static Person person(String cpf, String number) {
+        Person person = PersonUtils.createFakePerson();
+        person.setCpf(cpf);
+        person.setPhones(List.of(Phone.builder().type(PhoneType.MOBILE).number(number).build()));
+        return person;
+    }
+}
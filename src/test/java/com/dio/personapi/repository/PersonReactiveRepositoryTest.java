@@ -0,0 +1,122 @@
+package com.dio.personapi.repository;
+
+import com.dio.personapi.config.ReactiveConfig;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.enums.PhoneType;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.dio.personapi.utils.PersonUtils.validCpf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The schema is created by Hibernate through JDBC and read through the H2 R2DBC driver, both connected
+ * to the same named in-memory database. Tests do not run in a transaction so that R2DBC sees the rows.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests for the reactive person repository")
+class PersonReactiveRepositoryTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    private ConnectionPool connectionPool;
+    private PersonReactiveRepository personReactiveRepository;
+
+    @BeforeEach
+    void setup() {
+        connectionPool = ReactiveConfig.connectionPool("r2dbc:h2:mem:///reactive", username, password, 2);
+        personReactiveRepository = new PersonReactiveRepository(DatabaseClient.create(connectionPool));
+    }
+
+    @AfterEach
+    void cleanup() {
+        connectionPool.dispose();
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("FindById returns the person with its phones when the person exists")
+    void findById_ReturnsPersonWithPhones_WhenPersonExists() {
+        Person saved = save(0, "José", "Souza", "(11)99999-0000", "(11)3333-0000");
+
+        StepVerifier.create(personReactiveRepository.findById(saved.getId()))
+                .assertNext(person -> {
+                    assertThat(person.getFirstName()).isEqualTo("José");
+                    assertThat(person.getCpf()).isEqualTo(validCpf(0));
+                    assertThat(person.getBirthDate()).isEqualTo("1990-01-01");
+                    assertThat(person.getPhones()).extracting("number")
+                            .containsExactly("(11)99999-0000", "(11)3333-0000");
+                })
+                .verifyComplete();
+        StepVerifier.create(personReactiveRepository.findById(saved.getId() + 1000))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindByIdGreaterThan streams the next people in id order with their own phones")
+    void findByIdGreaterThan_StreamsNextPeopleInIdOrder_WhenPeopleExist() {
+        Person first = save(1, "Ana", "Lima", "(11)99999-0001");
+        save(2, "Bia", "Costa", "(11)99999-0002");
+        save(3, "Caio", "Melo", "(11)99999-0003");
+
+        List<PersonDTO> people = personReactiveRepository.findByIdGreaterThan(first.getId(), 10).collectList().block();
+
+        assertThat(people).extracting(PersonDTO::getFirstName).containsExactly("Bia", "Caio");
+        assertThat(people.get(1).getPhones()).extracting("number").containsExactly("(11)99999-0003");
+        StepVerifier.create(personReactiveRepository.findByIdGreaterThan(0, 1), 0)
+                .thenRequest(1)
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("FindByNameKeyStartingWith streams the people whose first or last name key matches")
+    void findByNameKeyStartingWith_StreamsMatchingPeople_WhenNamesMatch() {
+        save(4, "José", "Souza", "(11)99999-0004");
+        save(5, "Ana", "JOSEFINA", "(11)99999-0005");
+        save(6, "Jo_ao", "Silva", "(11)99999-0006");
+
+        StepVerifier.create(personReactiveRepository.findByNameKeyStartingWith("jose%", 10).map(PersonDTO::getLastName))
+                .expectNext("Souza", "JOSEFINA")
+                .verifyComplete();
+    }
+
+    private Person save(int seed, String firstName, String lastName, String... numbers) {
+        return personRepository.save(Person.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .cpf(validCpf(seed))
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .phones(Arrays.stream(numbers)
+                        .map(number -> Phone.builder().type(PhoneType.MOBILE).number(number).build())
+                        .collect(Collectors.toList()))
+                .build());
+    }
+}
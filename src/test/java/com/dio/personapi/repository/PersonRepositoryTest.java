@@ -1,5 +1,7 @@
 package com.dio.personapi.repository;
 
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PersonPhoneDTO;
 import com.dio.personapi.entities.Person;
 import com.dio.personapi.entities.Phone;
 import com.dio.personapi.enums.PhoneType;
@@ -7,23 +9,33 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.dio.personapi.utils.PersonUtils.createFakePerson;
+import static com.dio.personapi.utils.PersonUtils.validCpf;
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @DisplayName("Tests for person repository")
 class PersonRepositoryTest {
 
     @Autowired
     private PersonRepository personRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Person person;
 
     @BeforeEach
@@ -116,26 +128,136 @@ class PersonRepositoryTest {
     }
 
     @Test
-    @DisplayName("JUnit test for find by first name people operation")
-    void givenPersonObject_whenFindByNameFirstPerson_thenReturnPerson() {
+    @DisplayName("JUnit test for page of people loading phones with a fixed number of statements")
+    void givenPersonList_whenFindAllPageAndReadPhones_thenIssueFixedNumberOfStatements() {
 
-        Person personSaved = this.personRepository.save(person);
+        savePeopleWithPhones(10);
+        Statistics statistics = clearedStatistics();
+
+        List<Person> peopleList = this.personRepository.findAll(PageRequest.of(0, 5)).getContent();
+        peopleList.forEach(p -> assertThat(p.getPhones()).hasSize(1));
+
+        // page select + count + one batched phone select, regardless of page size
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("JUnit test for projected page of people and their phones operation")
+    void givenPersonList_whenFindAllDTOAndPhoneDTOs_thenReturnProjectedRows() {
+
+        savePeopleWithPhones(4);
+        Statistics statistics = clearedStatistics();
+
+        List<PersonDTO> peopleList = this.personRepository.findAllDTO(PageRequest.of(0, 2, Sort.by("lastName"))).getContent();
+        List<PersonPhoneDTO> phoneList = this.personRepository.findPhoneDTOsByPersonIdIn(
+                List.of(peopleList.get(0).getId(), peopleList.get(1).getId()));
+
+        assertThat(peopleList).extracting(PersonDTO::getLastName).containsExactly("Number 0", "Number 1");
+        assertThat(peopleList.get(0).getBirthDate()).isEqualTo("1990-01-01");
+        assertThat(phoneList).extracting(PersonPhoneDTO::getNumber).containsExactly("(11)99999-0000", "(11)99999-0001");
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("JUnit test for name prefix search ignoring case and accents operation")
+    void givenPersonList_whenFindDTOByNameKeyStartingWith_thenReturnPageOfMatchingPeople() {
+
+        this.personRepository.save(Person.builder().firstName("José").lastName("Souza").cpf(validCpf(1))
+                .birthDate(LocalDate.of(1990, 1, 1)).build());
+        this.personRepository.save(Person.builder().firstName("Ana").lastName("JOSEFINA").cpf(validCpf(2))
+                .birthDate(LocalDate.of(1990, 1, 1)).build());
+        this.personRepository.save(Person.builder().firstName("Jo_ao").lastName("Silva").cpf(validCpf(3))
+                .birthDate(LocalDate.of(1990, 1, 1)).build());
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        List<PersonDTO> josePage = this.personRepository.findDTOByNameKeyStartingWith("jose%",
+                PageRequest.of(0, 1, Sort.by("id"))).getContent();
+        long joseCount = this.personRepository.findDTOByNameKeyStartingWith("jose%",
+                PageRequest.of(0, 1, Sort.by("id"))).getTotalElements();
+        List<PersonDTO> underscore = this.personRepository.findDTOByNameKeyStartingWith("jo!_%",
+                PageRequest.of(0, 10)).getContent();
+
+        assertThat(josePage).extracting(PersonDTO::getFirstName).containsExactly("José");
+        assertThat(joseCount).isEqualTo(2);
+        assertThat(underscore).extracting(PersonDTO::getFirstName).containsExactly("Jo_ao");
+    }
 
-        String firstName = personSaved.getFirstName();
+    @Test
+    @DisplayName("JUnit test for find person by CPF stored as a number operation")
+    void givenPersonWithUnformattedCpf_whenFindDTOByCpf_thenReturnPersonWithFormattedCpf() {
+
+        Person person = createFakePerson();
+        person.setCpf("36933387879");
+        Person savedPerson = this.personRepository.save(person);
+        this.entityManager.flush();
+        this.entityManager.clear();
 
-        List<Person> personList = personRepository.findByFirstName(firstName);
+        Optional<PersonDTO> found = this.personRepository.findDTOByCpf("369.333.878-79");
+        Optional<PersonDTO> missing = this.personRepository.findDTOByCpf(validCpf(1));
 
-        assertThat(personList)
-                .isNotEmpty()
-                .contains(personSaved);
+        assertThat(found).isPresent();
+        assertThat(found.get().getId()).isEqualTo(savedPerson.getId());
+        assertThat(found.get().getCpf()).isEqualTo("369.333.878-79");
+        assertThat(missing).isEmpty();
+        assertThat(this.personRepository.existsByCpf("36933387879")).isTrue();
     }
 
     @Test
-    @DisplayName("JUnit test for find by first name people operation when returns empty list")
-    void givenPersonObject_whenFindByNameFirstPerson_thenReturnEmptyList() {
-        List<Person> personList = personRepository.findByFirstName("Test");
+    @DisplayName("JUnit test for find person by canonical phone number operation")
+    void givenPersonWithPhone_whenFindDTOByPhoneNumber_thenReturnOwner() {
+
+        Person savedPerson = this.personRepository.save(person);
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        Optional<PersonDTO> owner = this.personRepository.findDTOByPhoneNumber(Phone.canonicalNumber("+55 11 99999 9999"));
+
+        assertThat(savedPerson.getPhones().get(0).getNumber()).isEqualTo("(11)99999-9999");
+        assertThat(owner).isPresent();
+        assertThat(owner.get().getId()).isEqualTo(savedPerson.getId());
+        assertThat(this.personRepository.findDTOByPhoneNumber("(11)98888-8888")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("JUnit test for replace phones deleting the replaced phones operation")
+    void givenPersonWithPhone_whenReplacePhones_thenDeleteReplacedPhone() {
+
+        Person savedPerson = this.personRepository.save(person);
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        Person loaded = this.personRepository.findById(savedPerson.getId()).get();
+        loaded.getPhones().clear();
+        loaded.getPhones().add(Phone.builder().type(PhoneType.HOME).number("(11)3333-4444").build());
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        assertThat(this.personRepository.findPhoneDTOsByPersonIdIn(List.of(savedPerson.getId())))
+                .extracting(PersonPhoneDTO::getNumber).containsExactly("(11)3333-4444");
+        assertThat(this.personRepository.existsPhoneByNumber("(11)99999-9999")).isFalse();
+    }
+
+    private void savePeopleWithPhones(int count) {
+        IntStream.range(0, count).forEach(i -> this.personRepository.save(Person.builder()
+                .firstName("Person")
+                .lastName("Number " + i)
+                .cpf(validCpf(i))
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .phones(Collections.singletonList(Phone.builder()
+                        .type(PhoneType.MOBILE)
+                        .number("11999990" + String.format("%03d", i))
+                        .build()))
+                .build()));
+        this.entityManager.flush();
+        this.entityManager.clear();
+    }
 
-        assertThat(personList).isEmpty();
+    private Statistics clearedStatistics() {
+        Statistics statistics = this.entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.dio.personapi.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for the primitive long to int hash map")
+class LongIntHashMapTest {
+
+    @Test
+    @DisplayName("Map behaves like a HashMap when keys are put, incremented and removed at random")
+    void map_BehavesLikeHashMap_WhenOperationsAreRandom() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0:
+                    map.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 1:
+                    assertThat(map.addTo(key, 1)).isEqualTo(expected.merge(key, 1, Integer::sum));
+                    break;
+                default:
+                    assertThat(map.remove(key, -1)).isEqualTo(expected.getOrDefault(key, -1));
+                    expected.remove(key);
+            }
+        }
+
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(actual).isEqualTo(expected);
+        expected.forEach((key, value) -> assertThat(map.get(key, -1)).isEqualTo(value));
+    }
+}
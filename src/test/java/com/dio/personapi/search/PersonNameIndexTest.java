@@ -0,0 +1,63 @@
+package com.dio.personapi.search;
+
+import com.dio.personapi.dto.PersonSearchResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for the person name index")
+class PersonNameIndexTest {
+
+    private PersonNameIndex personNameIndex;
+
+    @BeforeEach
+    void setup() {
+        personNameIndex = new PersonNameIndex();
+        personNameIndex.put(1L, "José", "Souza");
+        personNameIndex.put(2L, "Ana", "Josefina Barros");
+        personNameIndex.put(3L, "Mariana", "Silva");
+        personNameIndex.put(4L, "Maria", "Souza");
+    }
+
+    @Test
+    @DisplayName("Search finds names containing the query ignoring case and accents, word starts first")
+    void search_FindsSubstringsRankingWordStartsFirst_WhenQueryIsPartOfNames() {
+        List<PersonSearchResultDTO> results = personNameIndex.search("ANA", 10);
+
+        assertThat(results).extracting(PersonSearchResultDTO::getId).containsExactly(2L, 3L);
+        assertThat(personNameIndex.search("jose", 10)).extracting(PersonSearchResultDTO::getId).containsExactly(1L, 2L);
+        assertThat(personNameIndex.search("ouza", 10)).extracting(PersonSearchResultDTO::getId).containsExactlyInAnyOrder(1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Search tolerates a typo at the end of the query")
+    void search_ToleratesTypo_WhenQueryIsMisspelled() {
+        assertThat(personNameIndex.search("barris", 10)).extracting(PersonSearchResultDTO::getId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Search returns at most limit results, best first")
+    void search_ReturnsAtMostLimitResults_WhenManyPeopleMatch() {
+        IntStream.range(10, 60).forEach(i -> personNameIndex.put(i, "Person", "Number " + i));
+
+        assertThat(personNameIndex.search("pers", 5)).hasSize(5);
+        assertThat(personNameIndex.search("maria", 1)).extracting(PersonSearchResultDTO::getId).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Put and remove keep the index current when people change")
+    void putAndRemove_KeepIndexCurrent_WhenPeopleChange() {
+        personNameIndex.put(1L, "Joao", "Pereira");
+        personNameIndex.remove(4L);
+        personNameIndex.put(5L, "Souza", "Lima");
+
+        assertThat(personNameIndex.size()).isEqualTo(4);
+        assertThat(personNameIndex.search("souza", 10)).extracting(PersonSearchResultDTO::getId).containsExactly(5L);
+        assertThat(personNameIndex.search("pereira", 10)).extracting(PersonSearchResultDTO::getFirstName).containsExactly("Joao");
+    }
+}
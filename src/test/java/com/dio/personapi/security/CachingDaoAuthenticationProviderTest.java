@@ -0,0 +1,112 @@
+package com.dio.personapi.security;
+
+import com.dio.personapi.config.CacheConfig;
+import com.dio.personapi.entities.PersonUser;
+import com.dio.personapi.repository.PersonUserRepository;
+import com.dio.personapi.service.PersonUserDetailsService;
+import com.dio.personapi.utils.PersonUserCreater;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DataJpaTest
+@Import({CacheConfig.class, CredentialCache.class, PersonUserCacheEvictionListener.class, PersonUserDetailsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests for the credential caching authentication provider")
+class CachingDaoAuthenticationProviderTest {
+
+    private static final String PASSWORD = "projectSpringBoot";
+
+    @Autowired
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private PersonUserDetailsService personUserDetailsService;
+
+    @Autowired
+    private PersonUserRepository personUserRepository;
+
+    private final PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    private final AtomicInteger encoderChecks = new AtomicInteger();
+    private CachingDaoAuthenticationProvider provider;
+
+    @BeforeEach
+    void setup() {
+        provider = new CachingDaoAuthenticationProvider(credentialCache);
+        provider.setUserDetailsService(personUserDetailsService);
+        provider.setUserCache(new SpringCacheBasedUserCache(credentialCache.getUsers()));
+        provider.setPasswordEncoder(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return passwordEncoder.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                encoderChecks.incrementAndGet();
+                return passwordEncoder.matches(rawPassword, encodedPassword);
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanup() {
+        personUserRepository.findAll().forEach(user -> credentialCache.evict(user.getUsername()));
+        personUserRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Authenticate runs the password encoder once when the same credentials are repeated")
+    void authenticate_RunsPasswordEncoderOnce_WhenCredentialsAreRepeated() {
+        PersonUser user = personUserRepository.save(PersonUserCreater.PersonUserUSER());
+
+        provider.authenticate(token(user.getUsername(), PASSWORD));
+        provider.authenticate(token(user.getUsername(), PASSWORD));
+        provider.authenticate(token(user.getUsername(), PASSWORD));
+
+        Assertions.assertThat(encoderChecks.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Authenticate throws BadCredentialsException when the password differs from the cached one")
+    void authenticate_ThrowsBadCredentialsException_WhenPasswordDiffersFromCachedOne() {
+        PersonUser user = personUserRepository.save(PersonUserCreater.PersonUserUSER());
+        provider.authenticate(token(user.getUsername(), PASSWORD));
+
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> provider.authenticate(token(user.getUsername(), "wrongPassword")));
+    }
+
+    @Test
+    @DisplayName("Authenticate rejects the old password when the user password was changed")
+    void authenticate_RejectsOldPassword_WhenUserPasswordWasChanged() {
+        PersonUser user = personUserRepository.save(PersonUserCreater.PersonUserUSER());
+        provider.authenticate(token(user.getUsername(), PASSWORD));
+
+        user.setPassword(passwordEncoder.encode("newPassword"));
+        personUserRepository.save(user);
+
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> provider.authenticate(token(user.getUsername(), PASSWORD)));
+        Assertions.assertThat(provider.authenticate(token(user.getUsername(), "newPassword")).isAuthenticated())
+                .isTrue();
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password);
+    }
+}
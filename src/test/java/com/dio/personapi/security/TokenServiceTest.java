@@ -0,0 +1,73 @@
+package com.dio.personapi.security;
+
+import com.dio.personapi.dto.TokenResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+import java.util.Base64;
+
+@DisplayName("Tests for the access token service")
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            "Michele", null, AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+    @Test
+    @DisplayName("Verify returns the username and roles of the issued token when the token is valid")
+    void verify_ReturnsUsernameAndRoles_WhenTokenIsValid() throws Exception {
+        TokenService tokenService = new TokenService(new ObjectMapper(), SECRET, Duration.ofMinutes(15));
+
+        TokenResponseDTO token = tokenService.issue(authentication);
+        TokenAuthentication verified = tokenService.verify(token.getAccessToken());
+
+        Assertions.assertThat(token.getExpiresIn()).isEqualTo(900);
+        Assertions.assertThat(verified.getName()).isEqualTo("Michele");
+        Assertions.assertThat(verified.isAuthenticated()).isTrue();
+        Assertions.assertThat(verified.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("Verify throws BadCredentialsException when the claims were changed")
+    void verify_ThrowsBadCredentialsException_WhenClaimsWereChanged() throws Exception {
+        TokenService tokenService = new TokenService(new ObjectMapper(), SECRET, Duration.ofMinutes(15));
+        String token = tokenService.issue(authentication).getAccessToken();
+        String forgedClaims = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"Visit\",\"roles\":[\"ROLE_ADMIN\"],\"exp\":9999999999}".getBytes());
+
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> tokenService.verify(forgedClaims + token.substring(token.indexOf('.'))));
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> tokenService.verify("not-a-token"));
+    }
+
+    @Test
+    @DisplayName("Verify throws BadCredentialsException when the token was signed with another key")
+    void verify_ThrowsBadCredentialsException_WhenSignedWithAnotherKey() throws Exception {
+        String token = new TokenService(new ObjectMapper(), "", Duration.ofMinutes(15))
+                .issue(authentication).getAccessToken();
+
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> new TokenService(new ObjectMapper(), SECRET, Duration.ofMinutes(15)).verify(token));
+    }
+
+    @Test
+    @DisplayName("Verify throws CredentialsExpiredException when the token has expired")
+    void verify_ThrowsCredentialsExpiredException_WhenTokenHasExpired() throws Exception {
+        TokenService tokenService = new TokenService(new ObjectMapper(), SECRET, Duration.ofSeconds(-1));
+        String token = tokenService.issue(authentication).getAccessToken();
+
+        Assertions.assertThatExceptionOfType(CredentialsExpiredException.class)
+                .isThrownBy(() -> tokenService.verify(token));
+    }
+}
@@ -0,0 +1,147 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.CacheConfig;
+import com.dio.personapi.dto.BulkOperationDTO;
+import com.dio.personapi.dto.BulkResultDTO;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PersonPhoneDTO;
+import com.dio.personapi.dto.PersonSearchResultDTO;
+import com.dio.personapi.dto.PhoneDTO;
+import com.dio.personapi.duplicate.DuplicateGuard;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.enums.BulkOperationType;
+import com.dio.personapi.enums.PhoneType;
+import com.dio.personapi.mapper.PersonMapperImpl;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.search.PersonNameIndex;
+import com.dio.personapi.utils.PersonUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "personapi.bulk.chunk-size=2")
+@Import({CacheConfig.class, PersonBulkService.class, PersonMapperImpl.class, PersonNameIndex.class,
+        DuplicateGuard.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests for person bulk service")
+class PersonBulkServiceTest {
+
+    @Autowired
+    private PersonBulkService personBulkService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonNameIndex personNameIndex;
+
+    @Autowired
+    private DuplicateGuard duplicateGuard;
+
+    @AfterEach
+    void cleanup() {
+        personRepository.deleteAll();
+        personNameIndex.clear();
+    }
+
+    @Test
+    @DisplayName("Execute returns one result per operation when operations are mixed")
+    void execute_ReturnsOneResultPerOperation_WhenOperationsAreMixed() {
+        Person saved = personRepository.save(PersonUtils.createFakePerson());
+        PersonDTO replacement = person("123.456.789-09", "(11)98888-7777");
+        replacement.setLastName("Replaced");
+
+        List<BulkResultDTO> results = personBulkService.execute(List.of(
+                operation(BulkOperationType.CREATE, null, person("987.654.321-00", "(11)91111-2222")),
+                operation(BulkOperationType.CREATE, null, person("not a cpf", "(11)91111-3333")),
+                operation(BulkOperationType.REPLACE, saved.getId(), replacement),
+                operation(BulkOperationType.DELETE, saved.getId() + 1000, null),
+                operation(BulkOperationType.CREATE, null, person("111.444.777-35", "(11)91111-4444"))));
+
+        assertThat(results).extracting(BulkResultDTO::getStatus).containsExactly(201, 400, 204, 404, 201);
+        assertThat(results.get(0).getId()).isNotNull();
+        assertThat(personRepository.count()).isEqualTo(3);
+        assertThat(personRepository.findDTOById(saved.getId()).get().getLastName()).isEqualTo("Replaced");
+        assertThat(personNameIndex.size()).isEqualTo(3);
+        assertThat(personNameIndex.search("replaced", 10)).extracting(PersonSearchResultDTO::getId)
+                .containsExactly(saved.getId());
+    }
+
+    @Test
+    @DisplayName("Execute reports conflict only for the failing operation when a chunk is rolled back")
+    void execute_ReportsConflictOnlyForFailingOperation_WhenChunkIsRolledBack() {
+        List<BulkResultDTO> results = personBulkService.execute(List.of(
+                operation(BulkOperationType.CREATE, null, person("529.982.247-25", "(11)92222-1111")),
+                operation(BulkOperationType.CREATE, null, person("529.982.247-25", "(11)92222-2222")),
+                operation(BulkOperationType.CREATE, null, person("453.178.287-91", "(11)92222-3333"))));
+
+        assertThat(results).extracting(BulkResultDTO::getStatus).containsExactly(201, 409, 201);
+        assertThat(personRepository.count()).isEqualTo(2);
+        assertThat(personNameIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Execute reports conflict without rolling back the chunk when a create reuses a stored CPF")
+    void execute_ReportsConflictBeforeChunk_WhenCreateReusesStoredCpf() {
+        Person saved = personRepository.save(PersonUtils.createFakePerson());
+        duplicateGuard.load();
+
+        List<BulkResultDTO> results = personBulkService.execute(List.of(
+                operation(BulkOperationType.CREATE, null, person("453.178.287-91", "(11)93333-1111")),
+                operation(BulkOperationType.CREATE, null, person(saved.getCpf(), "(11)93333-2222"))));
+
+        assertThat(results).extracting(BulkResultDTO::getStatus).containsExactly(201, 409);
+        assertThat(results.get(1).getMessage()).contains(saved.getCpf());
+        assertThat(personRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Execute replaces a person when the replacement keeps one of its phone numbers")
+    void execute_ReplacesPerson_WhenReplacementKeepsPhoneNumber() {
+        Person saved = personRepository.save(PersonUtils.createFakePerson());
+        Long keptPhoneId = saved.getPhones().get(0).getId();
+        PersonDTO replacement = person(saved.getCpf(), "11 99999-9999");
+        replacement.setPhones(List.of(replacement.getPhones().get(0),
+                PhoneDTO.builder().type(PhoneType.HOME).number("(11)3444-5555").build()));
+
+        List<BulkResultDTO> results = personBulkService.execute(List.of(
+                operation(BulkOperationType.REPLACE, saved.getId(), replacement)));
+
+        assertThat(results).extracting(BulkResultDTO::getStatus).containsExactly(204);
+        List<PersonPhoneDTO> phones = personRepository.findPhoneDTOsByPersonIdIn(List.of(saved.getId()));
+        assertThat(phones).extracting(PersonPhoneDTO::getNumber).containsExactlyInAnyOrder("(11)99999-9999", "(11)3444-5555");
+        assertThat(phones).extracting(PersonPhoneDTO::getId, PersonPhoneDTO::getNumber).contains(tuple(keptPhoneId, "(11)99999-9999"));
+    }
+
+    private static BulkOperationDTO operation(BulkOperationType type, Long id, PersonDTO person) {
+        return BulkOperationDTO.builder()
+                .operation(type)
+                .id(id)
+                .person(person)
+                .build();
+    }
+
+    private static PersonDTO person(String cpf, String phoneNumber) {
+        PersonDTO personDTO = PersonUtils.createFakeDTO();
+        personDTO.setCpf(cpf);
+        personDTO.setPhones(List.of(PhoneDTO.builder()
+                .type(PhoneType.MOBILE)
+                .number(phoneNumber)
+                .build()));
+        return personDTO;
+    }
+}
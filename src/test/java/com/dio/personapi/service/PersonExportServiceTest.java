@@ -0,0 +1,84 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.enums.FileFormat;
+import com.dio.personapi.enums.PhoneType;
+import com.dio.personapi.mapper.PersonCsvMapper;
+import com.dio.personapi.mapper.PersonMapperImpl;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.utils.PersonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({PersonExportService.class, PersonMapperImpl.class, PersonCsvMapper.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("Tests for person export service")
+class PersonExportServiceTest {
+
+    @Autowired
+    private PersonExportService personExportService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setup() {
+        personRepository.save(PersonUtils.createFakePerson());
+        personRepository.save(Person.builder()
+                .firstName("Ana, \"Aninha\"")
+                .lastName("Maria")
+                .cpf("027.395.360-54")
+                .birthDate(LocalDate.of(1990, 12, 14))
+                .phones(List.of(
+                        Phone.builder().type(PhoneType.HOME).number("(11)3333-4444").build(),
+                        Phone.builder().type(PhoneType.MOBILE).number("(11)98888-7777").build()))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Export writes one JSON object per line when format is NDJSON")
+    void export_WritesOneJsonObjectPerLine_WhenFormatIsNdjson() {
+        String[] lines = export(FileFormat.NDJSON).split("\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":").contains("\"birthDate\":\"01-10-2010\"");
+        assertThat(lines[1]).contains("\"number\":\"(11)3333-4444\"", "\"number\":\"(11)98888-7777\"");
+    }
+
+    @Test
+    @DisplayName("Export writes header and quoted fields when format is CSV")
+    void export_WritesHeaderAndQuotedFields_WhenFormatIsCsv() {
+        String[] lines = export(FileFormat.CSV).split("\n");
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo(PersonCsvMapper.HEADER);
+        assertThat(lines[2]).endsWith(",\"Ana, \"\"Aninha\"\"\",Maria,027.395.360-54,14-12-1990,HOME:(11)3333-4444|MOBILE:(11)98888-7777");
+    }
+
+    private String export(FileFormat format) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        personExportService.export(format, outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
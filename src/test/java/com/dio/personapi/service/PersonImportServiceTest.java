@@ -0,0 +1,144 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.CacheConfig;
+import com.dio.personapi.dto.ImportResultDTO;
+import com.dio.personapi.duplicate.DuplicateGuard;
+import com.dio.personapi.entities.ImportCheckpoint;
+import com.dio.personapi.enums.FileFormat;
+import com.dio.personapi.mapper.PersonCsvMapper;
+import com.dio.personapi.mapper.PersonMapperImpl;
+import com.dio.personapi.repository.ImportCheckpointRepository;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.search.PersonNameIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {"personapi.bulk.chunk-size=2", "personapi.import.chunk-size=2"})
+@Import({CacheConfig.class, PersonImportService.class, PersonBulkService.class, PersonMapperImpl.class, PersonCsvMapper.class,
+        PersonNameIndex.class, DuplicateGuard.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests for person import service")
+class PersonImportServiceTest {
+
+    private static final String NDJSON = ndjson("123.456.789-09", "(11)91111-0001")
+            + ndjson("invalid", "(11)91111-0002")
+            + ndjson("987.654.321-00", "(11)91111-0003")
+            + "\n"
+            + ndjson("111.444.777-35", "(11)91111-0004")
+            + ndjson("529.982.247-25", "(11)91111-0005");
+
+    @Autowired
+    private PersonImportService personImportService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @SpyBean
+    private ImportCheckpointRepository importCheckpointRepository;
+
+    @AfterEach
+    void cleanup() {
+        personRepository.deleteAll();
+        importCheckpointRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("ImportPeople stores valid records and reports invalid ones when format is NDJSON")
+    void importPeople_StoresValidRecordsAndReportsInvalidOnes_WhenFormatIsNdjson() {
+        ImportResultDTO result = personImportService.importPeople("ndjson", FileFormat.NDJSON, stream(NDJSON));
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().asString().startsWith("line 2: cpf");
+        assertThat(personRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("ImportPeople reads quoted fields when format is CSV")
+    void importPeople_ReadsQuotedFields_WhenFormatIsCsv() {
+        String csv = PersonCsvMapper.HEADER + "\n"
+                + ",\"Ana, \"\"Aninha\"\"\",Maria,027.395.360-54,14-12-1990,HOME:(11)3333-4444|MOBILE:(11)98888-7777\n";
+
+        ImportResultDTO result = personImportService.importPeople("csv", FileFormat.CSV, stream(csv));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(personRepository.findDTOByCpf("027.395.360-54")).hasValueSatisfying(person -> {
+            assertThat(person.getFirstName()).isEqualTo("Ana, \"Aninha\"");
+            assertThat(personRepository.findPhoneDTOsByPersonIdIn(List.of(person.getId()))).hasSize(2);
+        });
+    }
+
+    @Test
+    @DisplayName("ImportPeople resumes after the last checkpoint when a previous attempt failed")
+    void importPeople_ResumesAfterLastCheckpoint_WhenPreviousAttemptFailed() {
+        String firstLines = NDJSON.substring(0, NDJSON.indexOf("\n\n") + 2);
+        InputStream failing = new SequenceInputStream(stream(firstLines), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        assertThatThrownBy(() -> personImportService.importPeople("resume", FileFormat.NDJSON, failing))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(personImportService.findImport("resume").getLineNumber()).isEqualTo(2);
+
+        ImportResultDTO result = personImportService.importPeople("resume", FileFormat.NDJSON, stream(NDJSON));
+
+        assertThat(result.getSkipped()).isEqualTo(2);
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(personRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("ImportPeople commits the checkpoint with the chunk when the import stops right after it")
+    void importPeople_CommitsCheckpointWithChunk_WhenImportStopsAfterChunk() {
+        Mockito.doThrow(new IllegalStateException("stopped")).when(importCheckpointRepository)
+                .save(ArgumentMatchers.<ImportCheckpoint>argThat(checkpoint -> !TransactionSynchronizationManager.isActualTransactionActive()));
+
+        assertThatThrownBy(() -> personImportService.importPeople("stopped", FileFormat.NDJSON, stream(NDJSON)))
+                .hasMessage("stopped");
+
+        ImportResultDTO checkpoint = personImportService.findImport("stopped");
+        assertThat(checkpoint.getLineNumber()).isEqualTo(1);
+        assertThat(checkpoint.getImported()).isEqualTo(1);
+        assertThat(personRepository.count()).isEqualTo(1);
+    }
+
+    private static String ndjson(String cpf, String phone) {
+        return "{\"firstName\":\"Michele\",\"lastName\":\"Fidelis\",\"cpf\":\"" + cpf + "\",\"birthDate\":\"04-04-2010\","
+                + "\"phones\":[{\"type\":\"MOBILE\",\"number\":\"" + phone + "\"}]}\n";
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
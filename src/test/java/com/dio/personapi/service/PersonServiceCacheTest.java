@@ -0,0 +1,118 @@
+package com.dio.personapi.service;
+
+import com.dio.personapi.config.CacheConfig;
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.duplicate.DuplicateGuard;
+import com.dio.personapi.mapper.PersonMapper;
+import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.search.PersonNameIndex;
+import com.dio.personapi.utils.PersonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {CacheConfig.class, PersonService.class})
+@DisplayName("Test for personService cache")
+class PersonServiceCacheTest {
+
+    @MockBean
+    private PersonRepository personRepository;
+
+    @MockBean
+    private PersonMapper personMapper;
+
+    @MockBean
+    private PersonNameIndex personNameIndex;
+
+    @MockBean
+    private DuplicateGuard duplicateGuard;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setup() {
+        BDDMockito.when(personRepository.findDTOById(ArgumentMatchers.anyLong()))
+                .thenAnswer(invocation -> Optional.of(personAtVersion(0L)));
+        BDDMockito.when(personRepository.findById(ArgumentMatchers.anyLong()))
+                .thenAnswer(invocation -> Optional.of(PersonUtils.createFakeEntity()));
+        BDDMockito.when(personMapper.toModel(ArgumentMatchers.any(PersonDTO.class)))
+                .thenAnswer(invocation -> PersonUtils.createFakeEntity());
+    }
+
+    @Test
+    @DisplayName("FindById reads the database once when the person is requested twice")
+    void findById_ReadsDatabaseOnce_WhenPersonIsRequestedTwice() {
+        personService.findById(1L);
+        PersonDTO person = personService.findById(1L);
+
+        assertThat(person.getVersion()).isZero();
+        Mockito.verify(personRepository, Mockito.times(1)).findDTOById(1L);
+    }
+
+    @Test
+    @DisplayName("FindById reads the database again when the person was replaced")
+    void findById_ReadsDatabaseAgain_WhenPersonWasReplaced() {
+        personService.findById(2L);
+        BDDMockito.when(personRepository.findDTOById(2L)).thenReturn(Optional.of(personAtVersion(1L)));
+
+        personService.replace(2L, PersonUtils.createFakeDTO());
+        PersonDTO person = personService.findById(2L);
+
+        assertThat(person.getVersion()).isEqualTo(1L);
+        Mockito.verify(personRepository, Mockito.times(2)).findDTOById(2L);
+    }
+
+    @Test
+    @DisplayName("FindById reads the database again when the person was deleted")
+    void findById_ReadsDatabaseAgain_WhenPersonWasDeleted() {
+        personService.findById(3L);
+
+        personService.delete(3L);
+        personService.findById(3L);
+
+        Mockito.verify(personRepository, Mockito.times(2)).findDTOById(3L);
+    }
+
+    @Test
+    @DisplayName("Evict keeps the cached person until commit when called inside a transaction")
+    void evict_KeepsCachedPersonUntilCommit_WhenCalledInsideTransaction() {
+        Cache peopleCache = cacheManager.getCache(CacheConfig.PEOPLE_CACHE);
+        personService.findById(4L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            peopleCache.evict(4L);
+            assertThat(peopleCache.get(4L)).isNotNull();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(peopleCache.get(4L)).isNull();
+    }
+
+    private static PersonDTO personAtVersion(long version) {
+        PersonDTO person = PersonUtils.createFakeDTOEntity();
+        person.setVersion(version);
+        return person;
+    }
+}
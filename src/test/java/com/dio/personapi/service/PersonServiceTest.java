@@ -2,11 +2,16 @@ package com.dio.personapi.service;
 
 import com.dio.personapi.dto.MessageResponseDTO;
 import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.duplicate.DuplicateGuard;
 import com.dio.personapi.entities.Person;
+import com.dio.personapi.exception.BadRequestException;
+import com.dio.personapi.exception.DuplicateResourceException;
 import com.dio.personapi.exception.ResourceNotFoundException;
 import com.dio.personapi.mapper.PersonMapper;
 import com.dio.personapi.repository.PersonRepository;
+import com.dio.personapi.search.PersonNameIndex;
 import com.dio.personapi.utils.PersonUtils;
+import com.dio.personapi.wrapper.CursorPage;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,9 +21,12 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
@@ -36,6 +44,12 @@ class PersonServiceTest {
     @Mock
     private PersonMapper personMapper;
 
+    @Mock
+    private PersonNameIndex personNameIndex;
+
+    @Mock
+    private DuplicateGuard duplicateGuard;
+
     @InjectMocks
     private PersonService personService;
 
@@ -45,7 +59,7 @@ class PersonServiceTest {
         Person person = PersonUtils.createFakeEntity();
         PersonDTO personDTO = PersonUtils.createFakeDTO();
 
-        List<Person> people = List.of(PersonUtils.createFakeEntity());
+        List<PersonDTO> people = List.of(PersonUtils.createFakeDTO());
 
         BDDMockito.when(personMapper.toModel(personDTO))
                 .thenReturn(person);
@@ -59,8 +73,11 @@ class PersonServiceTest {
         BDDMockito.when(personRepository.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(Optional.of(person));
 
-        BDDMockito.when(personRepository.findByFirstName(ArgumentMatchers.anyString()))
-                .thenReturn(people);
+        BDDMockito.when(personRepository.findDTOById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(personDTO));
+
+        BDDMockito.when(personRepository.findDTOByNameKeyStartingWith(ArgumentMatchers.anyString(), ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(new PageImpl<>(people));
 
         BDDMockito.doNothing().when(personRepository).delete(ArgumentMatchers.any(Person.class));
     }
@@ -76,24 +93,56 @@ class PersonServiceTest {
         assertThat(message.getMessage()).isEqualTo(expectedMessage);
     }
 
+    @Test
+    @DisplayName("CreatePerson throws DuplicateResourceException without saving when the CPF is taken")
+    void createPerson_ThrowsDuplicateResourceException_WhenCpfIsTaken() {
+        BDDMockito.doThrow(new DuplicateResourceException("A person with CPF 123.456.789-09 already exists"))
+                .when(duplicateGuard).checkNotDuplicate(ArgumentMatchers.any());
+
+        Assertions.assertThatExceptionOfType(DuplicateResourceException.class)
+                .isThrownBy(() -> personService.createPerson(PersonUtils.createFakeDTO()));
+        Mockito.verify(personRepository, Mockito.never()).save(ArgumentMatchers.any());
+    }
+
     @Test
     @DisplayName("ListAll returns list of people inside page object when successful")
     void listAll_ReturnsListOfPeopleInsidePageObject_WhenSuccessful() {
-        PageImpl<Person> personPage = new PageImpl<Person>(List.of(PersonUtils.createFakeEntity()));
+        PageImpl<PersonDTO> personPage = new PageImpl<PersonDTO>(List.of(PersonUtils.createFakeDTOEntity()));
 
-        BDDMockito.when(personMapper.toDTO(PersonUtils.createFakeEntity()))
-                .thenReturn(PersonUtils.createFakeDTOEntity());
-        BDDMockito.when(personRepository.findAll(ArgumentMatchers.any(PageRequest.class)))
+        BDDMockito.when(personRepository.findAllDTO(ArgumentMatchers.any(PageRequest.class)))
                 .thenReturn(personPage);
 
         String expectedNameFirstName = PersonUtils.createFakeDTOEntity().getFirstName();
 
-        Page<PersonDTO> personDTOPage = personService.listAll(PageRequest.of(1,3));
+        Page<PersonDTO> personDTOPage = personService.withPhones(personService.listAllWithoutPhones(PageRequest.of(1,3)));
 
         assertThat(personDTOPage).isNotNull();
         assertThat(personDTOPage.toList().get(0).getFirstName()).isEqualTo(expectedNameFirstName);
     }
 
+    @Test
+    @DisplayName("ListAfter returns page with next cursor when there are more people")
+    void listAfter_ReturnsPageWithNextCursor_WhenThereAreMorePeople() {
+        PersonDTO second = PersonUtils.createFakeDTOEntity();
+        second.setId(2L);
+
+        BDDMockito.when(personRepository.findDTOByIdGreaterThan(ArgumentMatchers.anyLong(), ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(List.of(PersonUtils.createFakeDTOEntity(), second));
+
+        CursorPage<PersonDTO> page = personService.listAfter(null, 1);
+
+        assertThat(page.getContent().size()).isEqualTo(1);
+        assertThat(page.getNextCursor()).isEqualTo(CursorPage.encodeCursor(1L));
+        assertThat(page.isLast()).isFalse();
+    }
+
+    @Test
+    @DisplayName("ListAfter throws BadRequestException when cursor is invalid")
+    void listAfter_ThrowsBadRequestException_WhenCursorIsInvalid() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> personService.listAfter("not-a-cursor", 3));
+    }
+
     @Test
     @DisplayName("FindById returns person when successful")
     void findById_ReturnsPerson_WhenSuccessful() {
@@ -106,12 +155,52 @@ class PersonServiceTest {
         assertThat(personDTO.getId()).isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("FindByCpf looks the person up by the formatted CPF when the CPF is given as digits")
+    void findByCpf_ReturnsPerson_WhenCpfIsGivenAsDigits() {
+        BDDMockito.when(personRepository.findDTOByCpf("369.333.878-79"))
+                .thenReturn(Optional.of(PersonUtils.createFakeDTOEntity()));
+
+        PersonDTO personDTO = personService.findByCpf("36933387879");
+
+        assertThat(personDTO.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("FindByCpf throws BadRequestException without querying when the CPF is invalid")
+    void findByCpf_ThrowsBadRequestException_WhenCpfIsInvalid() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> personService.findByCpf("369.333.878-70"));
+        Mockito.verifyNoInteractions(personRepository);
+    }
+
+    @Test
+    @DisplayName("FindByPhoneNumber looks the owner up by the canonical number when the number is written differently")
+    void findByPhoneNumber_ReturnsOwner_WhenNumberIsWrittenDifferently() {
+        BDDMockito.when(personRepository.findDTOByPhoneNumber("(11)99999-9999"))
+                .thenReturn(Optional.of(PersonUtils.createFakeDTOEntity()));
+
+        PersonDTO personDTO = personService.findByPhoneNumber("+55 (11) 99999 9999");
+
+        assertThat(personDTO.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("FindByPhoneNumber throws ResourceNotFoundException when nobody owns the number")
+    void findByPhoneNumber_ThrowsResourceNotFoundException_WhenNumberIsNotStored() {
+        BDDMockito.when(personRepository.findDTOByPhoneNumber(ArgumentMatchers.anyString()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(ResourceNotFoundException.class)
+                .isThrownBy(() -> personService.findByPhoneNumber("11988887777"));
+    }
+
     @Test
     @DisplayName("FindById throws personNotFoundException when person is not found")
     void findById_ThrowsPersonNotFoundException_WhenPersonNotFound() {
 
-        BDDMockito.when(personRepository.findById(ArgumentMatchers.anyLong()))
-                .thenThrow(ResourceNotFoundException.class);
+        BDDMockito.when(personRepository.findDTOById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.empty());
 
         Exception exception = null;
 
@@ -142,15 +231,32 @@ class PersonServiceTest {
     }
 
     @Test
-    @DisplayName("FindByFirstName returns list of people when successful")
-    void findByFirstName_ReturnsListPeople_WhenSuccessful() {
+    @DisplayName("Search returns page of people when successful")
+    void search_ReturnsPageOfPeople_WhenSuccessful() {
 
-        String expectedFirstName = PersonUtils.createFakeEntity().getFirstName();
+        String expectedFirstName = PersonUtils.createFakeDTO().getFirstName();
 
-        List<Person> person = personService.findByFirstName("Maria");
+        Page<PersonDTO> personPage = personService.search("Mi", PageRequest.of(0, 10));
 
-        assertThat(person).isNotNull();
-        assertThat(person.get(0).getFirstName()).isEqualTo(expectedFirstName);
+        assertThat(personPage).isNotNull();
+        assertThat(personPage.toList().get(0).getFirstName()).isEqualTo(expectedFirstName);
+    }
+
+    @Test
+    @DisplayName("Search looks up an escaped lower case prefix without accents sorted by id when successful")
+    void search_LooksUpEscapedKeyPrefixSortedById_WhenSuccessful() {
+
+        personService.search(" Jo_sé ", PageRequest.of(1, 10));
+
+        Mockito.verify(personRepository).findDTOByNameKeyStartingWith("jo!_se%", PageRequest.of(1, 10, Sort.by("id")));
+    }
+
+    @Test
+    @DisplayName("Search throws BadRequestException when name is blank")
+    void search_ThrowsBadRequestException_WhenNameIsBlank() {
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> personService.search("  ", PageRequest.of(0, 10)));
     }
 
     @Test
@@ -160,6 +266,9 @@ class PersonServiceTest {
         PersonDTO personDTO = PersonUtils.createFakeDTO();
         personDTO.setId(1L);
 
+        BDDMockito.when(personMapper.toModel(personDTO))
+                .thenReturn(PersonUtils.createFakeEntity());
+
         Assertions.assertThatCode(() -> personService.replace(personDTO.getId(), personDTO))
                 .doesNotThrowAnyException();
     }
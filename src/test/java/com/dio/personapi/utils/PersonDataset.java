@@ -0,0 +1,201 @@
+package com.dio.personapi.utils;
+
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.validation.Cpf;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the first people of a {@link PersonGenerator} in parallel, either straight into the person and phone
+ * tables with batched JDBC inserts, or to an NDJSON file the import endpoint accepts.
+ * <p>
+ * Each thread generates and writes its own chunks of people. Inserted people get the id {@code index + 1} and
+ * their phones {@code index * MAX_PHONES + position + 1}, so chunks need no coordination, and the id sequences
+ * are moved past them at the end. Do not insert while the application is creating people.
+ */
+public final class PersonDataset {
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final String INSERT_PERSON = "insert into person "
+            + "(id, first_name, last_name, cpf_number, first_name_key, last_name_key, birth_date, version) "
+            + "values (?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_PHONE = "insert into phone (id, type, number, person_id) values (?, ?, ?, ?)";
+
+    private final PersonGenerator generator;
+    private final int threads;
+
+    public PersonDataset(PersonGenerator generator, int threads) {
+        this.generator = generator;
+        this.threads = threads;
+    }
+
+    /**
+     * Replaces every person and phone of the database with the first {@code people} generated ones.
+     */
+    public void insert(DataSource dataSource, long people) throws SQLException {
+        checkPeople(people);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("delete from phone");
+            statement.executeUpdate("delete from person");
+        }
+        List<Callable<Void>> chunks = new ArrayList<>();
+        for (long start = 0; start < people; start += CHUNK_SIZE) {
+            long from = start;
+            long to = Math.min(people, start + CHUNK_SIZE);
+            chunks.add(() -> {
+                insertChunk(dataSource, from, to);
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> chunk : executor.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while inserting people", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to insert people", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            restartSequence(connection, "person_seq", people);
+            restartSequence(connection, "phone_seq", people * PersonGenerator.MAX_PHONES);
+        }
+    }
+
+    /**
+     * Writes the first {@code people} generated people as NDJSON, in index order.
+     */
+    public void writeNdjson(Path file, long people) throws IOException {
+        checkPeople(people);
+        ObjectWriter writer = new ObjectMapper().writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // chunks are generated ahead in parallel and written in order, with a bounded number in memory
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try (OutputStream output = Files.newOutputStream(file)) {
+            for (long start = 0; start < people; start += CHUNK_SIZE) {
+                long from = start;
+                long to = Math.min(people, start + CHUNK_SIZE);
+                pending.add(executor.submit(() -> ndjsonChunk(writer, from, to)));
+                if (pending.size() > threads * 2) {
+                    output.write(pending.remove().get());
+                }
+            }
+            while (!pending.isEmpty()) {
+                output.write(pending.remove().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing people", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to write people", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insertChunk(DataSource dataSource, long from, long to) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insertPerson = connection.prepareStatement(INSERT_PERSON);
+                 PreparedStatement insertPhone = connection.prepareStatement(INSERT_PHONE)) {
+                for (long index = from; index < to; index++) {
+                    Person person = generator.person(index);
+                    long personId = index + 1;
+                    insertPerson.setLong(1, personId);
+                    insertPerson.setString(2, person.getFirstName());
+                    insertPerson.setString(3, person.getLastName());
+                    insertPerson.setLong(4, Cpf.parse(person.getCpf()));
+                    insertPerson.setString(5, Person.nameKey(person.getFirstName()));
+                    insertPerson.setString(6, Person.nameKey(person.getLastName()));
+                    insertPerson.setDate(7, Date.valueOf(person.getBirthDate()));
+                    insertPerson.addBatch();
+                    List<Phone> phones = person.getPhones();
+                    for (int position = 0; position < phones.size(); position++) {
+                        insertPhone.setLong(1, index * PersonGenerator.MAX_PHONES + position + 1);
+                        insertPhone.setString(2, phones.get(position).getType().name());
+                        insertPhone.setString(3, phones.get(position).getNumber());
+                        insertPhone.setLong(4, personId);
+                        insertPhone.addBatch();
+                    }
+                    if ((index - from + 1) % BATCH_SIZE == 0) {
+                        insertPerson.executeBatch();
+                        insertPhone.executeBatch();
+                    }
+                }
+                insertPerson.executeBatch();
+                insertPhone.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private byte[] ndjsonChunk(ObjectWriter writer, long from, long to) throws IOException {
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream((int) (to - from) * 256);
+        try (JsonGenerator json = writer.getFactory().createGenerator(chunk)) {
+            json.setRootValueSeparator(null);
+            for (long index = from; index < to; index++) {
+                writer.writeValue(json, generator.personDTO(index));
+                json.writeRaw('\n');
+            }
+        }
+        return chunk.toByteArray();
+    }
+
+    /**
+     * Makes the next ids Hibernate allocates greater than {@code lastId}. Its pooled optimizer reads the
+     * sequence value as the last id of a block of {@link Person#ID_ALLOCATION_SIZE}, and the sequence is a
+     * single row table of the same name on databases without sequences, such as MySQL.
+     */
+    private static void restartSequence(Connection connection, String name, long lastId) throws SQLException {
+        long nextValue = lastId + Person.ID_ALLOCATION_SIZE + 1;
+        boolean table;
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+            table = tables.next();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(table
+                    ? "update " + name + " set next_val = " + nextValue
+                    : "alter sequence " + name + " restart with " + nextValue);
+        }
+    }
+
+    private static void checkPeople(long people) {
+        if (people < 0 || people > PersonGenerator.MAX_PEOPLE) {
+            throw new IllegalArgumentException("The number of people must be between 0 and " + PersonGenerator.MAX_PEOPLE + ", got " + people);
+        }
+    }
+}
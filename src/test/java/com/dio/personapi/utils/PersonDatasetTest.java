@@ -0,0 +1,79 @@
+package com.dio.personapi.utils;
+
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.repository.PersonRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs on its own database, so that Hibernate has not allocated ids of the inserted people before the test.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:dataset;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests for the generated person dataset")
+class PersonDatasetTest {
+
+    private static final int PEOPLE = 2_500;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private final PersonGenerator generator = new PersonGenerator(7);
+    private final PersonDataset dataset = new PersonDataset(generator, 4);
+
+    @AfterEach
+    void cleanup() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Insert replaces the people with the generated ones and moves new ids after them")
+    void insert_ReplacesPeopleWithGeneratedOnes_WhenDatabaseHasPeople() throws Exception {
+        dataset.insert(dataSource, PEOPLE / 2);
+
+        dataset.insert(dataSource, PEOPLE);
+
+        assertThat(personRepository.count()).isEqualTo(PEOPLE);
+        PersonDTO byCpf = personRepository.findDTOByCpf(generator.cpf(1234)).orElseThrow();
+        assertThat(byCpf.getId()).isEqualTo(1235L);
+        assertThat(byCpf.getLastName()).isEqualTo(generator.person(1234).getLastName());
+        assertThat(personRepository.findDTOByPhoneNumber(generator.mobileNumber(7)).orElseThrow().getId()).isEqualTo(8L);
+
+        Person saved = personRepository.save(PersonUtils.createFakePerson());
+        assertThat(saved.getId()).isGreaterThan(PEOPLE);
+    }
+
+    @Test
+    @DisplayName("WriteNdjson writes one generated person per line in index order")
+    void writeNdjson_WritesGeneratedPeopleInOrder(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("people.ndjson");
+
+        dataset.writeNdjson(file, PEOPLE);
+
+        List<String> lines = Files.readAllLines(file);
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertThat(lines).hasSize(PEOPLE);
+        assertThat(objectMapper.readValue(lines.get(0), PersonDTO.class)).isEqualTo(generator.personDTO(0));
+        assertThat(objectMapper.readValue(lines.get(PEOPLE - 1), PersonDTO.class)).isEqualTo(generator.personDTO(PEOPLE - 1));
+    }
+}
@@ -0,0 +1,255 @@
+package com.dio.personapi.utils;
+
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.entities.Person;
+import com.dio.personapi.entities.Phone;
+import com.dio.personapi.enums.PhoneType;
+import com.dio.personapi.mapper.PersonMapper;
+import com.dio.personapi.validation.Cpf;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates any number of distinct, valid people, up to {@link #MAX_PEOPLE}. Person {@code index} is always
+ * the same for the same seed, so people can be generated in parallel and out of order.
+ * <p>
+ * First names, surnames, area codes and ages follow weights taken from Brazilian census figures. CPFs and
+ * phone numbers are unique: they are affine permutations of the index over the space of their digits, so
+ * they are spread over that space instead of counting up, and two indexes never share one.
+ */
+public final class PersonGenerator {
+
+    /**
+     * Bounded by the landline numbers, one per person, from 2000-0000 to 5999-9999.
+     */
+    public static final long MAX_PEOPLE = 40_000_000L;
+    public static final int MAX_PHONES = 3;
+
+    private static final LocalDate REFERENCE_DATE = LocalDate.of(2024, 1, 1);
+
+    private static final long CPF_BASES = 1_000_000_000L;
+    private static final long REPDIGIT_STEP = 111_111_111L;
+    private static final long MOBILE_LINES = 100_000_000L;
+    private static final long LANDLINE_LINES = 40_000_000L;
+    private static final long FIRST_LANDLINE = 20_000_000L;
+    // odd and not a multiple of 5, so coprime with every power of ten times a power of two
+    private static final long CPF_MULTIPLIER = 387_420_489L;
+    private static final long LINE_MULTIPLIER = 43_046_721L;
+
+    private static final Weighted<String> FEMALE_NAMES = new Weighted<>(
+            "Maria", 11734, "Ana", 3079, "Francisca", 725, "Antônia", 588, "Adriana", 565, "Juliana", 562,
+            "Márcia", 551, "Fernanda", 531, "Patrícia", 529, "Aline", 509, "Sandra", 475, "Camila", 473,
+            "Amanda", 468, "Bruna", 460, "Jéssica", 456, "Letícia", 434, "Júlia", 430, "Luciana", 429,
+            "Vanessa", 417, "Mariana", 381, "Gabriela", 359, "Vera", 353, "Vitória", 344, "Larissa", 340,
+            "Cláudia", 337, "Beatriz", 331, "Luana", 326, "Rita", 325, "Sônia", 323, "Renata", 313,
+            "Eduarda", 310, "Michele", 250);
+    private static final Weighted<String> MALE_NAMES = new Weighted<>(
+            "José", 5754, "João", 2984, "Antônio", 2576, "Francisco", 1773, "Carlos", 1490, "Paulo", 1424,
+            "Pedro", 1220, "Lucas", 1128, "Luiz", 1108, "Marcos", 1107, "Luis", 936, "Gabriel", 933,
+            "Rafael", 815, "Daniel", 712, "Marcelo", 694, "Bruno", 669, "Eduardo", 631, "Felipe", 615,
+            "Raimundo", 611, "Rodrigo", 598, "Manoel", 565, "Mateus", 536, "André", 533, "Fernando", 529,
+            "Fábio", 514, "Leonardo", 509, "Gustavo", 507, "Guilherme", 504, "Leandro", 478, "Tiago", 465);
+    private static final Weighted<String> SURNAMES = new Weighted<>(
+            "Silva", 1000, "Santos", 720, "Oliveira", 450, "Souza", 400, "Rodrigues", 270, "Ferreira", 260,
+            "Alves", 240, "Pereira", 230, "Lima", 210, "Gomes", 190, "Costa", 170, "Ribeiro", 160,
+            "Martins", 150, "Carvalho", 140, "Almeida", 130, "Lopes", 120, "Soares", 120, "Fernandes", 110,
+            "Vieira", 110, "Barbosa", 100, "Rocha", 100, "Dias", 90, "Nascimento", 90, "Andrade", 80,
+            "Moreira", 80, "Nunes", 80, "Marques", 70, "Machado", 70, "Mendes", 70, "Freitas", 70,
+            "Cardoso", 60, "Ramos", 60, "Gonçalves", 60, "Santana", 60, "Teixeira", 60, "Araújo", 60,
+            "Moura", 50, "Cavalcanti", 50, "Monteiro", 50, "Batista", 50, "Fidelis", 10);
+    // area codes weighted by the millions of people they cover
+    private static final Weighted<Integer> AREA_CODES = new Weighted<>(
+            11, 210, 21, 120, 31, 60, 51, 44, 19, 43, 61, 40, 71, 40, 81, 40, 85, 40, 41, 37, 62, 30,
+            91, 29, 92, 26, 27, 25, 98, 25, 12, 24, 84, 22, 35, 21, 82, 20, 15, 20, 47, 20, 13, 19,
+            48, 18, 65, 18, 83, 18, 43, 17, 17, 16, 34, 16, 86, 16, 16, 16, 79, 15, 67, 15, 44, 15,
+            14, 13, 69, 11, 68, 9, 18, 9, 96, 8, 63, 8, 95, 6);
+    // ages of adults in five year ranges from 18, weighted by their share of the population
+    private static final int FIRST_AGE = 18;
+    private static final int AGE_RANGE = 5;
+    private static final Weighted<Integer> AGE_RANGES = new Weighted<>(
+            0, 76, 1, 77, 2, 79, 3, 80, 4, 76, 5, 67, 6, 61, 7, 57, 8, 48, 9, 39, 10, 29, 11, 19, 12, 12,
+            13, 6, 14, 4);
+
+    private static final double FEMALE_SHARE = 0.51;
+    private static final double COMPOUND_FIRST_NAME_SHARE = 0.15;
+    private static final double TWO_SURNAMES_SHARE = 0.6;
+    private static final double[] PHONE_COUNT_SHARES = {0.55, 0.35, 0.10};
+
+    private final long seed;
+    private final long cpfOffset;
+    private final long mobileOffset;
+    private final long landlineOffset;
+
+    public PersonGenerator(long seed) {
+        this.seed = seed;
+        this.cpfOffset = Math.floorMod(mix(seed), CPF_BASES);
+        this.mobileOffset = Math.floorMod(mix(seed + 1), MOBILE_LINES);
+        this.landlineOffset = Math.floorMod(mix(seed + 2), LANDLINE_LINES);
+    }
+
+    /**
+     * Person {@code index}, without ids. The first phone is always {@link #mobileNumber(long)}.
+     */
+    public Person person(long index) {
+        checkIndex(index);
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(index)));
+        Weighted<String> names = random.nextDouble() < FEMALE_SHARE ? FEMALE_NAMES : MALE_NAMES;
+        String firstName = random.nextDouble() < COMPOUND_FIRST_NAME_SHARE
+                ? names.pickTwo(random)
+                : names.pick(random);
+        String lastName = random.nextDouble() < TWO_SURNAMES_SHARE
+                ? SURNAMES.pickTwo(random)
+                : SURNAMES.pick(random);
+        int age = FIRST_AGE + AGE_RANGES.pick(random) * AGE_RANGE + random.nextInt(AGE_RANGE);
+        int areaCode = AREA_CODES.pick(random);
+
+        int phoneCount = phoneCount(random);
+        List<Phone> phones = new ArrayList<>(phoneCount);
+        phones.add(phone(PhoneType.MOBILE, mobileNumber(areaCode, index * 2)));
+        if (phoneCount > 1) {
+            phones.add(phone(PhoneType.HOME, landlineNumber(areaCode, index)));
+        }
+        if (phoneCount > 2) {
+            phones.add(phone(PhoneType.COMMERCIAL, mobileNumber(areaCode, index * 2 + 1)));
+        }
+        return Person.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .cpf(cpf(index))
+                .birthDate(REFERENCE_DATE.minusYears(age).minusDays(random.nextInt(365)))
+                .phones(phones)
+                .build();
+    }
+
+    /**
+     * Person {@code index} in the format of the import and export files.
+     */
+    public PersonDTO personDTO(long index) {
+        return PersonMapper.INSTANCE.toExportDTO(person(index));
+    }
+
+    /**
+     * Formatted CPF of person {@code index}. The nine base digits are a permutation of the index over the
+     * bases that are not all the same digit, since those are rejected, followed by the check digits.
+     */
+    public String cpf(long index) {
+        checkIndex(index);
+        long base = affine(index + 1 + index / (REPDIGIT_STEP - 1), CPF_MULTIPLIER, cpfOffset, CPF_BASES);
+        while (base % REPDIGIT_STEP == 0) {
+            base = affine(base, CPF_MULTIPLIER, cpfOffset, CPF_BASES);
+        }
+        int first = checkDigit(base, 9);
+        int second = checkDigit(base * 10 + first, 10);
+        return Cpf.format(base * 100 + first * 10 + second);
+    }
+
+    /**
+     * Mobile number of person {@code index}, the first of its phones, in canonical form.
+     */
+    public String mobileNumber(long index) {
+        return person(index).getPhones().get(0).getNumber();
+    }
+
+    private String mobileNumber(int areaCode, long line) {
+        long number = affine(line, LINE_MULTIPLIER, mobileOffset, MOBILE_LINES);
+        return String.format("(%02d)9%04d-%04d", areaCode, number / 10_000, number % 10_000);
+    }
+
+    private String landlineNumber(int areaCode, long line) {
+        long number = FIRST_LANDLINE + affine(line, LINE_MULTIPLIER, landlineOffset, LANDLINE_LINES);
+        return String.format("(%02d)%04d-%04d", areaCode, number / 10_000, number % 10_000);
+    }
+
+    private static Phone phone(PhoneType type, String number) {
+        return Phone.builder().type(type).number(number).build();
+    }
+
+    private static int phoneCount(SplittableRandom random) {
+        double draw = random.nextDouble();
+        int count = 1;
+        for (int i = 0; i < PHONE_COUNT_SHARES.length - 1 && draw >= PHONE_COUNT_SHARES[i]; i++) {
+            draw -= PHONE_COUNT_SHARES[i];
+            count++;
+        }
+        return count;
+    }
+
+    private static void checkIndex(long index) {
+        if (index < 0 || index >= MAX_PEOPLE) {
+            throw new IllegalArgumentException("The index must be between 0 and " + (MAX_PEOPLE - 1) + ", got " + index);
+        }
+    }
+
+    /**
+     * {@code (value * multiplier + offset) mod modulus}, a permutation of {@code [0, modulus)} when the
+     * multiplier is coprime with the modulus. Values and multipliers are small enough not to overflow.
+     */
+    private static long affine(long value, long multiplier, long offset, long modulus) {
+        return (value * multiplier + offset) % modulus;
+    }
+
+    /**
+     * Check digit of the last {@code count} digits of {@code digits}, weighted 2, 3, ... from the right.
+     */
+    private static int checkDigit(long digits, int count) {
+        int sum = 0;
+        for (int weight = 2; weight <= count + 1; weight++, digits /= 10) {
+            sum += (int) (digits % 10) * weight;
+        }
+        int remainder = sum % 11;
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
+
+    /**
+     * Stafford variant 13 of the 64 bit finalizer of MurmurHash3, so that neighbour seeds and indexes give
+     * unrelated random streams.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Values picked at random in proportion to their weights, given as value, weight pairs.
+     */
+    private static final class Weighted<T> {
+
+        private final Object[] values;
+        private final double[] cumulativeWeights;
+
+        Weighted(Object... valuesAndWeights) {
+            values = new Object[valuesAndWeights.length / 2];
+            cumulativeWeights = new double[values.length];
+            double total = 0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = valuesAndWeights[i * 2];
+                total += ((Number) valuesAndWeights[i * 2 + 1]).doubleValue();
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T pick(SplittableRandom random) {
+            double draw = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int position = Arrays.binarySearch(cumulativeWeights, draw);
+            return (T) values[position < 0 ? -position - 1 : position + 1];
+        }
+
+        /**
+         * Two different values, separated by a space.
+         */
+        String pickTwo(SplittableRandom random) {
+            T first = pick(random);
+            T second = pick(random);
+            while (second.equals(first)) {
+                second = pick(random);
+            }
+            return first + " " + second;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.dio.personapi.utils;
+
+import com.dio.personapi.dto.PersonDTO;
+import com.dio.personapi.dto.PhoneDTO;
+import com.dio.personapi.entities.Phone;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+@DisplayName("Tests for the person generator")
+class PersonGeneratorTest {
+
+    private final PersonGenerator generator = new PersonGenerator(42);
+
+    @Test
+    @DisplayName("PersonDTO returns valid people with distinct CPFs and canonical, distinct phone numbers")
+    void personDTO_ReturnsValidDistinctPeople_WhenIndexesDiffer() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        Set<String> cpfs = new HashSet<>();
+        Set<String> numbers = new HashSet<>();
+
+        for (long index = 0; index < 20_000; index++) {
+            PersonDTO person = generator.personDTO(index);
+
+            assertThat(validator.validate(person)).isEmpty();
+            assertThat(cpfs.add(person.getCpf())).isTrue();
+            for (PhoneDTO phone : person.getPhones()) {
+                assertThat(Phone.canonicalNumber(phone.getNumber())).isEqualTo(phone.getNumber());
+                assertThat(numbers.add(phone.getNumber())).isTrue();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Person returns the same person for the same seed and index")
+    void person_ReturnsSamePerson_WhenSeedAndIndexAreTheSame() {
+        assertThat(new PersonGenerator(42).person(1234)).isEqualTo(generator.person(1234));
+        assertThat(new PersonGenerator(43).cpf(1234)).isNotEqualTo(generator.cpf(1234));
+        assertThat(generator.mobileNumber(1234)).isEqualTo(generator.person(1234).getPhones().get(0).getNumber());
+    }
+
+    @Test
+    @DisplayName("Cpf returns valid CPFs up to the last index and rejects indexes beyond it")
+    void cpf_ReturnsValidCpfs_UpToLastIndex() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        LongStream.rangeClosed(PersonGenerator.MAX_PEOPLE - 1000, PersonGenerator.MAX_PEOPLE - 1)
+                .mapToObj(generator::personDTO)
+                .forEach(person -> assertThat(validator.validate(person)).isEmpty());
+        assertThatIllegalArgumentException().isThrownBy(() -> generator.cpf(PersonGenerator.MAX_PEOPLE));
+    }
+}
@@ -59,4 +59,23 @@ public class PersonUtils {
                 .phones(Collections.singletonList(PhoneUtils.createFakePhone()))
                 .build();
     }
+
+    /**
+     * A distinct valid CPF for every seed, formatted as 000.000.000-00.
+     */
+    public static String validCpf(int seed) {
+        String digits = String.format("%09d", 100_000_000L + seed * 7919L);
+        digits += checkDigit(digits);
+        digits += checkDigit(digits);
+        return digits.substring(0, 3) + "." + digits.substring(3, 6) + "." + digits.substring(6, 9) + "-" + digits.substring(9);
+    }
+
+    private static int checkDigit(String digits) {
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (digits.length() + 1 - i);
+        }
+        int remainder = sum % 11;
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
 }
@@ -0,0 +1,68 @@
+package com.dio.personapi.utils;
+
+import com.dio.personapi.metrics.RequestStatementsFilter;
+import org.assertj.core.api.AbstractAssert;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Assertions on the {@code X-Query-*} headers of a response, to keep endpoints within a budget of JDBC
+ * statements. Requires {@code personapi.statements.response-headers=true}.
+ * <pre>
+ * QueryBudgetAssert.assertThat(response).hasQueriesAtMost(2).hasNoRepeatedQueries();
+ * </pre>
+ */
+public class QueryBudgetAssert extends AbstractAssert<QueryBudgetAssert, HttpHeaders> {
+
+    private QueryBudgetAssert(HttpHeaders headers) {
+        super(headers, QueryBudgetAssert.class);
+    }
+
+    public static QueryBudgetAssert assertThat(ResponseEntity<?> response) {
+        return new QueryBudgetAssert(response.getHeaders());
+    }
+
+    public QueryBudgetAssert hasQueriesAtMost(int maxQueries) {
+        long queries = value(RequestStatementsFilter.QUERY_COUNT_HEADER);
+        if (queries > maxQueries) {
+            failWithMessage("Expected at most %d queries but the request executed %d (%s)", maxQueries, queries, summary());
+        }
+        return this;
+    }
+
+    public QueryBudgetAssert hasRowsAtMost(long maxRows) {
+        long rows = value(RequestStatementsFilter.QUERY_ROWS_HEADER);
+        if (rows > maxRows) {
+            failWithMessage("Expected at most %d rows read but the request read %d (%s)", maxRows, rows, summary());
+        }
+        return this;
+    }
+
+    /**
+     * Fails when a statement was executed more than once, the sign of an N+1 query.
+     */
+    public QueryBudgetAssert hasNoRepeatedQueries() {
+        long executions = value(RequestStatementsFilter.QUERY_MAX_EXECUTIONS_HEADER);
+        if (executions > 1) {
+            failWithMessage("Expected no repeated query but a statement was executed %d times (%s)", executions, summary());
+        }
+        return this;
+    }
+
+    private long value(String header) {
+        isNotNull();
+        String value = actual.getFirst(header);
+        if (value == null) {
+            failWithMessage("Expected the response to have the %s header, is personapi.statements.response-headers on?", header);
+        }
+        return Long.parseLong(value);
+    }
+
+    private String summary() {
+        return String.format("queries=%s, rows=%s, time=%sms, max executions=%s",
+                actual.getFirst(RequestStatementsFilter.QUERY_COUNT_HEADER),
+                actual.getFirst(RequestStatementsFilter.QUERY_ROWS_HEADER),
+                actual.getFirst(RequestStatementsFilter.QUERY_TIME_HEADER),
+                actual.getFirst(RequestStatementsFilter.QUERY_MAX_EXECUTIONS_HEADER));
+    }
+}
@@ -0,0 +1,40 @@
+package com.dio.personapi.validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests for CPF parsing and formatting")
+class CpfTest {
+
+    @Test
+    @DisplayName("Parse returns the numeric value of a CPF with or without punctuation")
+    void parse_ReturnsNumericValue_WhenCpfIsValid() {
+        assertThat(Cpf.parse("123.456.789-09")).isEqualTo(12345678909L);
+        assertThat(Cpf.parse("12345678909")).isEqualTo(12345678909L);
+        assertThat(Cpf.parse("123456789-09")).isEqualTo(12345678909L);
+        assertThat(Cpf.parse("027.395.360-54")).isEqualTo(2739536054L);
+    }
+
+    @Test
+    @DisplayName("Parse returns INVALID when a check digit, the punctuation or the length is wrong")
+    void parse_ReturnsInvalid_WhenCpfIsInvalid() {
+        assertThat(Cpf.parse("123.456.789-08")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse("123.456.789-19")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse("123-456.789.09")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse("123..456789-09")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse("1234567890")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse("123456789099")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse("111.111.111-11")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse("not a cpf")).isEqualTo(Cpf.INVALID);
+        assertThat(Cpf.parse(null)).isEqualTo(Cpf.INVALID);
+    }
+
+    @Test
+    @DisplayName("Format writes the numeric value back with leading zeros and punctuation")
+    void format_ReturnsPunctuatedCpf_WhenValueIsParsed() {
+        assertThat(Cpf.format(Cpf.parse("02739536054"))).isEqualTo("027.395.360-54");
+        assertThat(Cpf.format(12345678909L)).isEqualTo("123.456.789-09");
+    }
+}